@@ -0,0 +1,50 @@
+package org.coinen.reactive.persistence.benchmarks;
+
+import org.coinen.reactive.persistence.Studies;
+import org.coinen.reactive.persistence.db.DatabaseFacade;
+import org.coinen.reactive.persistence.model.StudyRequestDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * DatabaseFacade lookups over in-memory repositories, so only the facade's own
+ * overhead (snapshot, request collapsing, replica, Reactor operators) is measured.
+ */
+@State(Scope.Benchmark)
+public class DatabaseFacadeBenchmark {
+
+    @Param({"world-gdp", "europe-pop", "world-pop-dens", "usa-districts-jdbc", "usa-districts-r2dbc"})
+    public String study;
+
+    // Numeric studies are then served from the in-process replica
+    @Param({"false", "true"})
+    public boolean replica;
+
+    private DatabaseFacade facade;
+    private StudyRequestDto[] requests;
+
+    @Setup
+    public void setUp() {
+        facade = Fixtures.databaseFacade(Schedulers.immediate(), Fixtures.latencyMeters(), replica);
+        facade.warmUp().block();
+
+        List<String> regions = InMemoryRepositories.regions();
+        requests = new StudyRequestDto[regions.size()];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = new StudyRequestDto(Studies.byName(study), regions.get(i), null);
+        }
+        // Loads the snapshot before measuring
+        facade.resolvePersistedData(requests[0]).block();
+    }
+
+    @Benchmark
+    public Object resolvePersistedData(RegionCursor cursor) {
+        return facade.resolvePersistedData(requests[cursor.next(requests.length)]).block();
+    }
+}
@@ -0,0 +1,134 @@
+package org.coinen.reactive.persistence.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.coinen.reactive.persistence.BatchSettings;
+import org.coinen.reactive.persistence.StudyRouter;
+import org.coinen.reactive.persistence.db.DatabaseFacade;
+import org.coinen.reactive.persistence.db.LookupSettings;
+import org.coinen.reactive.persistence.db.StudyHandlers;
+import org.coinen.reactive.persistence.external.ExternalService;
+import org.coinen.reactive.persistence.external.HedgingPolicy;
+import org.coinen.reactive.persistence.external.HedgingSettings;
+import org.coinen.reactive.persistence.feed.StudyFeeds;
+import org.coinen.reactive.persistence.utils.AdaptiveBulkhead;
+import org.coinen.reactive.persistence.utils.CircuitBreakerSettings;
+import org.coinen.reactive.persistence.utils.CircuitBreakers;
+import org.coinen.reactive.persistence.utils.DiagnosticsSettings;
+import org.coinen.reactive.persistence.utils.LatencyMeters;
+import org.coinen.reactive.persistence.utils.ReactiveDiagnostics;
+import org.coinen.reactive.persistence.utils.StudyResultEncoder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Application services wired to in-memory repositories and a stubbed external
+ * service, with the defaults of application.yml.
+ */
+final class Fixtures {
+    static final String EXTERNAL_BODY = "{\"value\":21.5}";
+
+    private Fixtures() { }
+
+    static LatencyMeters latencyMeters() {
+        return new LatencyMeters(new SimpleMeterRegistry(), Duration.ofSeconds(5));
+    }
+
+    static ReactiveDiagnostics diagnostics(boolean enabled) {
+        return new ReactiveDiagnostics(
+            new DiagnosticsSettings(enabled, false, List.of("reactor-http-", "parallel-", "single-")),
+            new SimpleMeterRegistry());
+    }
+
+    static DatabaseFacade databaseFacade(Scheduler ioScheduler, LatencyMeters latencyMeters, boolean replica) {
+        return new DatabaseFacade(
+            StudyHandlers.create(
+                ioScheduler,
+                InMemoryRepositories.worldGdp(),
+                InMemoryRepositories.europePopulation(),
+                InMemoryRepositories.worldPopDensity(),
+                InMemoryRepositories.usSalesJdbc(),
+                InMemoryRepositories.usSalesR2dbc()),
+            new LookupSettings(
+                Duration.ofSeconds(5),
+                true,
+                true,
+                Duration.ofMillis(10),
+                100,
+                4,
+                replica,
+                Duration.ofSeconds(5)),
+            latencyMeters,
+            new CircuitBreakers(new SimpleMeterRegistry(), new CircuitBreakerSettings(
+                100,
+                20,
+                0.5,
+                Duration.ofSeconds(3),
+                0.5,
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(10),
+                5)));
+    }
+
+    static ExternalService externalService(LatencyMeters latencyMeters) {
+        WebClient webClient = WebClient.builder()
+            .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(EXTERNAL_BODY)
+                .build()))
+            .build();
+
+        // Hedging is off, a stub has no latency tail to cut
+        return new ExternalService(
+            "http://external-service",
+            new StubHttpClient(EXTERNAL_BODY),
+            webClient,
+            new HedgingPolicy(new HedgingSettings(
+                Duration.ofSeconds(1),
+                Duration.ofSeconds(1),
+                false,
+                0.95,
+                100,
+                0.05)),
+            50,
+            latencyMeters);
+    }
+
+    /**
+     * Client of the application's routes over the given services, without a
+     * server. Routes of services left out (status, ingest) are not usable.
+     */
+    static WebTestClient router(
+        AdaptiveBulkhead bulkhead,
+        DatabaseFacade facade,
+        ExternalService externalService,
+        LatencyMeters latencyMeters,
+        ReactiveDiagnostics diagnostics
+    ) {
+        StudyRouter router = StudyRouter.builder()
+            .bulkheads(List.of(bulkhead))
+            .ioScheduler(bulkhead.scheduler())
+            .dbFacade(facade)
+            .externalService(externalService)
+            .studyFeeds(new StudyFeeds(facade, externalService, Duration.ofSeconds(1)))
+            .batchSettings(new BatchSettings(1000))
+            .latencyMeters(latencyMeters)
+            .diagnostics(diagnostics)
+            .build();
+        // Same codecs as the application
+        return WebTestClient.bindToRouterFunction(router.routerFunction())
+            .handlerStrategies(HandlerStrategies.builder()
+                .codecs(configurer -> configurer.customCodecs().encoder(new StudyResultEncoder()))
+                .build())
+            .build();
+    }
+}
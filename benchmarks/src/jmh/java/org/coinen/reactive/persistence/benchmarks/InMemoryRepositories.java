@@ -0,0 +1,77 @@
+package org.coinen.reactive.persistence.benchmarks;
+
+import org.bson.types.ObjectId;
+import org.coinen.reactive.persistence.db.EuropePopulationDto;
+import org.coinen.reactive.persistence.db.EuropePopulationMongoRepository;
+import org.coinen.reactive.persistence.db.UsSalesDataDto;
+import org.coinen.reactive.persistence.db.UsSalesR2dbcRepository;
+import org.coinen.reactive.persistence.db.WorldGdpCassandraRepository;
+import org.coinen.reactive.persistence.db.WorldGdpDto;
+import org.coinen.reactive.persistence.db.WorldPopDensityDto;
+import org.coinen.reactive.persistence.db.WorldPopDensityReads;
+import org.coinen.reactive.persistence.db.jdbc.UsSalesJdbcRepository;
+import org.coinen.reactive.persistence.db.local.InMemoryEuropePopulationRepository;
+import org.coinen.reactive.persistence.db.local.InMemoryUsSalesJdbcRepository;
+import org.coinen.reactive.persistence.db.local.InMemoryUsSalesR2dbcRepository;
+import org.coinen.reactive.persistence.db.local.InMemoryWorldGdpRepository;
+import org.coinen.reactive.persistence.db.local.InMemoryWorldPopDensityRepository;
+import org.coinen.reactive.persistence.db.local.LatencyDistribution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The stand-in repositories of the "local" profile over synthetic regions,
+ * without latency.
+ */
+final class InMemoryRepositories {
+    static final int REGIONS = 200;
+
+    private static final LatencyDistribution NO_LATENCY = LatencyDistribution.fixed(0);
+
+    private InMemoryRepositories() { }
+
+    static List<String> regions() {
+        List<String> regions = new ArrayList<>(REGIONS);
+        for (int i = 0; i < REGIONS; i++) {
+            regions.add("r" + i);
+        }
+        return regions;
+    }
+
+    static WorldGdpCassandraRepository worldGdp() {
+        return new InMemoryWorldGdpRepository(
+            rows(region -> new WorldGdpDto(region, Math.abs(region.hashCode() % 1000))),
+            NO_LATENCY);
+    }
+
+    static EuropePopulationMongoRepository europePopulation() {
+        return new InMemoryEuropePopulationRepository(
+            rows(region -> new EuropePopulationDto(new ObjectId(), region, String.valueOf(region.hashCode()))),
+            NO_LATENCY);
+    }
+
+    static WorldPopDensityReads worldPopDensity() {
+        return new InMemoryWorldPopDensityRepository(
+            rows(region -> new WorldPopDensityDto(region, region.length() * 10.5)),
+            NO_LATENCY);
+    }
+
+    static UsSalesJdbcRepository usSalesJdbc() {
+        return new InMemoryUsSalesJdbcRepository(usSales(), NO_LATENCY);
+    }
+
+    static UsSalesR2dbcRepository usSalesR2dbc() {
+        return new InMemoryUsSalesR2dbcRepository(usSales(), NO_LATENCY);
+    }
+
+    private static List<UsSalesDataDto> usSales() {
+        return rows(region -> new UsSalesDataDto(region, Math.abs(region.hashCode() % 10_000) / 10.0));
+    }
+
+    private static <T> List<T> rows(Function<String, T> row) {
+        return regions().stream().map(row).collect(Collectors.toList());
+    }
+}
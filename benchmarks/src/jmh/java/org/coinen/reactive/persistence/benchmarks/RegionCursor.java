@@ -0,0 +1,17 @@
+package org.coinen.reactive.persistence.benchmarks;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Walks over all regions, per benchmark thread.
+ */
+@State(Scope.Thread)
+public class RegionCursor {
+    private int position;
+
+    int next(int size) {
+        position = position + 1 == size ? 0 : position + 1;
+        return position;
+    }
+}
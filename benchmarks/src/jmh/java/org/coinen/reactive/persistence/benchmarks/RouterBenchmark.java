@@ -0,0 +1,85 @@
+package org.coinen.reactive.persistence.benchmarks;
+
+import org.coinen.reactive.persistence.db.DatabaseFacade;
+import org.coinen.reactive.persistence.external.ExternalService;
+import org.coinen.reactive.persistence.utils.AdaptiveBulkhead;
+import org.coinen.reactive.persistence.utils.AppSchedulers;
+import org.coinen.reactive.persistence.utils.LatencyMeters;
+import org.coinen.reactive.persistence.utils.ReactiveDiagnostics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Whole request through the router, blocking vs. reactive handling, with
+ * in-memory repositories and a stubbed external service.
+ */
+@State(Scope.Benchmark)
+public class RouterBenchmark {
+
+    @Param({"world-gdp", "usa-districts-r2dbc", "uk-async"})
+    public String study;
+
+    // Overhead of the opt-in request tracing
+    @Param({"false", "true"})
+    public boolean diagnostics;
+
+    private AdaptiveBulkhead bulkhead;
+    private ReactiveDiagnostics reactiveDiagnostics;
+    private WebTestClient client;
+    private String[] blockingUris;
+    private String[] reactiveUris;
+
+    @Setup
+    public void setUp() {
+        reactiveDiagnostics = Fixtures.diagnostics(diagnostics);
+        reactiveDiagnostics.start();
+        bulkhead = AppSchedulers.newBulkhead("httpWorker", 8, 64, 1000, Duration.ofSeconds(1));
+        LatencyMeters latencyMeters = Fixtures.latencyMeters();
+        DatabaseFacade facade = Fixtures.databaseFacade(bulkhead.scheduler(), latencyMeters, false);
+        ExternalService externalService = Fixtures.externalService(latencyMeters);
+
+        client = Fixtures.router(bulkhead, facade, externalService, latencyMeters, reactiveDiagnostics);
+
+        List<String> regions = InMemoryRepositories.regions();
+        blockingUris = new String[regions.size()];
+        reactiveUris = new String[regions.size()];
+        for (int i = 0; i < regions.size(); i++) {
+            blockingUris[i] = "/service/" + study + "/" + regions.get(i) + "?timeout=0";
+            reactiveUris[i] = "/nio" + blockingUris[i];
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        bulkhead.dispose();
+        reactiveDiagnostics.dispose();
+    }
+
+    @Benchmark
+    public byte[] blocking(RegionCursor cursor) {
+        return exchange(blockingUris[cursor.next(blockingUris.length)]);
+    }
+
+    @Benchmark
+    public byte[] reactive(RegionCursor cursor) {
+        return exchange(reactiveUris[cursor.next(reactiveUris.length)]);
+    }
+
+    private byte[] exchange(String uri) {
+        return client.get()
+            .uri(uri)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .returnResult()
+            .getResponseBody();
+    }
+}
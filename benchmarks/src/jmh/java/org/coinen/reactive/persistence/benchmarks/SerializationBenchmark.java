@@ -0,0 +1,81 @@
+package org.coinen.reactive.persistence.benchmarks;
+
+import org.coinen.reactive.persistence.external.ExternalResponseDecoder;
+import org.coinen.reactive.persistence.external.ExternalStudyDto;
+import org.coinen.reactive.persistence.model.StudyRequestDto;
+import org.coinen.reactive.persistence.model.StudyResultDto;
+import org.coinen.reactive.persistence.utils.FixedDecimals;
+import org.coinen.reactive.persistence.utils.SerializationUtils;
+import org.coinen.reactive.persistence.utils.StudyResultEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.web.reactive.function.server.ServerRequest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Per-request parsing & formatting steps of the request pipeline.
+ */
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    private final ServerRequest request = MockServerRequest.builder()
+        .pathVariable("study", "world-gdp")
+        .pathVariable("region", "fr")
+        .queryParam("timeout", "1000")
+        .build();
+
+    private final String externalBody = Fixtures.EXTERNAL_BODY;
+    private final ByteBuffer externalBytes = ByteBuffer.wrap(Fixtures.EXTERNAL_BODY.getBytes(StandardCharsets.UTF_8));
+    private final Double colorValue = 21.5;
+    private final Object doublePin = 2582.5;
+    private final Object textPin = "66990000";
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+    private final StudyResultEncoder encoder = new StudyResultEncoder();
+    private final StudyResultDto result = StudyResultDto.generic(21.5, 2582.5);
+
+    @Benchmark
+    public StudyRequestDto parseRequest() {
+        return SerializationUtils.parseRequest(request);
+    }
+
+    @Benchmark
+    public ExternalStudyDto parseExternalResponse() {
+        return ExternalStudyDto.fromString(externalBody);
+    }
+
+    @Benchmark
+    public double decodeExternalResponse() {
+        return ExternalResponseDecoder.decode(externalBytes);
+    }
+
+    @Benchmark
+    public StudyResultDto formatDoubleResult() {
+        return StudyResultDto.generic(colorValue, doublePin);
+    }
+
+    @Benchmark
+    public StudyResultDto formatTextResult() {
+        return StudyResultDto.generic(colorValue, textPin);
+    }
+
+    @Benchmark
+    public String formatOneDecimal() {
+        return FixedDecimals.oneDecimal((Double) doublePin);
+    }
+
+    @Benchmark
+    public String formatOneDecimalWithFormatter() {
+        return String.format("%3.1f", doublePin);
+    }
+
+    // Memoized after the first invocation
+    @Benchmark
+    public DataBuffer encodeResult() {
+        return encoder.encode(result, bufferFactory);
+    }
+}
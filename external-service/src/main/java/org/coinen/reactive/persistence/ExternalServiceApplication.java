@@ -2,10 +2,16 @@ package org.coinen.reactive.persistence;
 
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.coinen.reactive.persistence.delay.RequestDelays;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
 import org.springframework.web.reactive.function.server.ServerRequest;
@@ -15,20 +21,26 @@ import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.MissingResourceException;
 import java.util.Random;
-import java.util.ResourceBundle;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
-import static java.time.Duration.ofMillis;
 import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
 import static org.springframework.web.reactive.function.server.ServerResponse.ok;
 
 @Slf4j
 @SpringBootApplication
 public class ExternalServiceApplication {
-	private static final int DEFAULT_TIMEOUT = 1000;
+	private static final ParameterizedTypeReference<Map<String, Double>> REGION_VALUES =
+		new ParameterizedTypeReference<Map<String, Double>>() { };
+	private static final DataBufferFactory BUFFERS = new DefaultDataBufferFactory();
+	// Per request logging costs more than serving the request
+	private static final long LOG_SAMPLE_RATE = 1024;
+	private static final AtomicLong loggedRequests = new AtomicLong();
 
 	public static void main(String[] args) {
 		SpringApplication.run(ExternalServiceApplication.class, args);
@@ -37,22 +49,22 @@ public class ExternalServiceApplication {
 	private final AtomicInteger activeRequests = new AtomicInteger(0);
 
 	@Bean
-	public RouterFunction<ServerResponse> routerFunction() {
+	public RouterFunction<ServerResponse> routerFunction(RequestDelays delays) {
 		return RouterFunctions
 			.route(
 				GET("/service/{study}/{region}"),
+				request -> regionStatistics(request, delays)
+			).andRoute(
+				GET("/service/{study}"),
 				request -> ok()
 					.contentType(MediaType.APPLICATION_JSON)
 					.body(
-						Mono.delay(getDelay(request))
+						withActivity(delays.delay(request)
 							.map(__ -> StatisticsDto
-								.forExperiment(
+								.forExperiments(
 									request.pathVariable("study"),
-									request.pathVariable("region")))
-							.doOnError(e -> log.warn("Error:", e))
-							.doOnSubscribe(__ -> activeRequests.incrementAndGet())
-							.doFinally(__ -> activeRequests.decrementAndGet()),
-						StatisticsDto.class)
+									request.queryParam("regions").orElse("").split(",")))),
+						REGION_VALUES)
 			).andRoute(
 				GET("/status"),
 				request -> ok()
@@ -61,27 +73,56 @@ public class ExternalServiceApplication {
 			);
 	}
 
-	private Flux<AppStatusDto> applicationStatus() {
-		return Flux.interval(Duration.ofMillis(250))
-			.map(__ -> new AppStatusDto(activeRequests.get()));
+	// Known studies are answered with pre-encoded bodies, bypassing Jackson
+	private Mono<ServerResponse> regionStatistics(ServerRequest request, RequestDelays delays) {
+		String study = request.pathVariable("study");
+		String region = request.pathVariable("region");
+		StudyTable table = StatisticsDto.studyTables.get(study);
+		if (table == null) {
+			return ok()
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(
+					withActivity(delays.delay(request).map(__ -> StatisticsDto.random())),
+					StatisticsDto.class);
+		}
+		return ok()
+			.contentType(MediaType.APPLICATION_JSON)
+			.body(BodyInserters.fromDataBuffers(
+				withActivity(delays.delay(request).map(__ -> encoded(table, study, region)))));
 	}
 
-	private Duration getDelay(ServerRequest request) {
-		try {
-			return ofMillis(
-				request
-					.queryParam("timeout")
-					.map(Integer::parseInt)
-					.orElse(DEFAULT_TIMEOUT));
-		} catch (Exception e) {
-			return ofMillis(DEFAULT_TIMEOUT);
+	private DataBuffer encoded(StudyTable table, String study, String region) {
+		int id = table.id(region);
+		if (id < 0) {
+			throw new MissingResourceException("No value for region '" + region + "'", study, region);
+		}
+		if (sampled()) {
+			log.info("Experiment: {}, region: {}, value: {} (1 of {} requests logged)",
+				study, region, table.value(id), LOG_SAMPLE_RATE);
 		}
+		return BUFFERS.wrap(table.body(id));
+	}
+
+	private static boolean sampled() {
+		return loggedRequests.getAndIncrement() % LOG_SAMPLE_RATE == 0;
+	}
+
+	private <T> Mono<T> withActivity(Mono<T> response) {
+		return response
+			.doOnError(e -> log.warn("Error:", e))
+			.doOnSubscribe(__ -> activeRequests.incrementAndGet())
+			.doFinally(__ -> activeRequests.decrementAndGet());
+	}
+
+	private Flux<AppStatusDto> applicationStatus() {
+		return Flux.interval(Duration.ofMillis(250))
+			.map(__ -> new AppStatusDto(activeRequests.get()));
 	}
 
 	@Value
 	public static class StatisticsDto {
 		private static Random rnd = new Random();
-		private static Map<String, ResourceBundle> studyData = new HashMap<>();
+		private static Map<String, StudyTable> studyTables = new HashMap<>();
 
 		static {
 			Stream.of(
@@ -94,7 +135,7 @@ public class ExternalServiceApplication {
 				"usa-districts-r2dbc",
 				"usa-districts-all-blocking"
 			).forEach(study ->
-				studyData.put(study, ResourceBundle.getBundle(study)));
+				studyTables.put(study, StudyTable.load(study)));
 		}
 
 		private final double value;
@@ -103,14 +144,25 @@ public class ExternalServiceApplication {
 			return new StatisticsDto(rnd.nextDouble() * 1000);
 		}
 
-		static StatisticsDto forExperiment(String study, String region) {
-			if (studyData.containsKey(study)) {
-				var studyData = StatisticsDto.studyData.get(study);
-				var temp = Double.parseDouble(studyData.getString(region));
-				log.info("Experiment: {}, region: {}, vale: {}", study, region, temp);
-				return new StatisticsDto(temp);
+		// Values of all known regions in one response, unknown regions are left out
+		static Map<String, Double> forExperiments(String study, String... regions) {
+			var values = new LinkedHashMap<String, Double>();
+			var table = studyTables.get(study);
+			for (String region : regions) {
+				if (table == null) {
+					values.put(region, random().getValue());
+				} else {
+					int id = table.id(region);
+					if (id >= 0) {
+						values.put(region, table.value(id));
+					}
+				}
+			}
+			if (sampled()) {
+				log.info("Experiment: {}, regions: {}/{} (1 of {} requests logged)",
+					study, values.size(), regions.length, LOG_SAMPLE_RATE);
 			}
-			return random();
+			return values;
 		}
 	}
 
@@ -0,0 +1,59 @@
+package org.coinen.reactive.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+/**
+ * Values of one study, loaded once from its properties file.
+ *
+ * Regions are interned to dense ids, values are kept in a primitive array and
+ * the JSON body of every region ({@code {"value":...}}) is encoded up front, so
+ * serving a region parses and serializes nothing.
+ */
+final class StudyTable {
+    private final Map<String, Integer> regionIds;
+    private final double[] values;
+    private final byte[][] bodies;
+
+    private StudyTable(Map<String, Integer> regionIds, double[] values, byte[][] bodies) {
+        this.regionIds = regionIds;
+        this.values = values;
+        this.bodies = bodies;
+    }
+
+    static StudyTable load(String study) {
+        ResourceBundle bundle = ResourceBundle.getBundle(study);
+        Map<String, Integer> regionIds = new HashMap<>();
+        for (String region : bundle.keySet()) {
+            regionIds.put(region.intern(), regionIds.size());
+        }
+
+        double[] values = new double[regionIds.size()];
+        byte[][] bodies = new byte[regionIds.size()][];
+        regionIds.forEach((region, id) -> {
+            values[id] = Double.parseDouble(bundle.getString(region));
+            // Same text as Jackson writes for a double
+            bodies[id] = ("{\"value\":" + values[id] + "}").getBytes(StandardCharsets.UTF_8);
+        });
+        return new StudyTable(regionIds, values, bodies);
+    }
+
+    /**
+     * @return id of the region, -1 when the study has no value for it
+     */
+    int id(String region) {
+        Integer id = regionIds.get(region);
+        return id == null ? -1 : id;
+    }
+
+    double value(int id) {
+        return values[id];
+    }
+
+    // Shared array, must not be modified
+    byte[] body(int id) {
+        return bodies[id];
+    }
+}
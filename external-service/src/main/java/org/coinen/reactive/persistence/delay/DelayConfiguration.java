@@ -0,0 +1,29 @@
+package org.coinen.reactive.persistence.delay;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+
+@Configuration
+@Slf4j
+public class DelayConfiguration {
+
+    @Bean(destroyMethod = "stop")
+    public RequestDelays requestDelays(
+        @Value("${delay.latency}") String latency,
+        @Value("${delay.scheduler}") RequestDelays.Mode mode,
+        @Value("${delay.wheel.tick-millis}") long tickMillis,
+        @Value("${delay.wheel.size}") int wheelSize
+    ) {
+        log.info("Requests are delayed by '{}' ms, scheduled on {}", latency, mode);
+        return new RequestDelays(
+            LatencyDistribution.parse(latency),
+            mode == RequestDelays.Mode.WHEEL ?
+                new HashedWheelTimer("delayWheel", Duration.ofMillis(tickMillis), wheelSize, Schedulers.parallel()) :
+                null);
+    }
+}
@@ -0,0 +1,142 @@
+package org.coinen.reactive.persistence.delay;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timer for huge numbers of concurrent delays.
+ *
+ * Delays are hashed into the buckets of a wheel by expiry tick, so scheduling
+ * and cancelling are O(1), while a heap-based scheduled executor pays
+ * O(log n) per delay. A single thread advances the wheel once per tick, so
+ * delays expire up to one tick late. Expired delays are completed on the given
+ * scheduler, keeping the ticker free of request work.
+ */
+@Slf4j
+public class HashedWheelTimer {
+    // Upper bound of new delays moved into the wheel per tick, the rest waits for the next tick
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Timeout[] wheel;
+    private final int mask;
+    private final Scheduler scheduler;
+
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final long startTime = System.nanoTime();
+    private final Thread ticker;
+    private volatile boolean stopped;
+
+    public HashedWheelTimer(String name, Duration tick, int wheelSize, Scheduler scheduler) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickNanos = tick.toNanos();
+        this.wheel = new Timeout[wheelSize];
+        this.mask = wheelSize - 1;
+        this.scheduler = scheduler;
+
+        this.ticker = new Thread(this::run, name);
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    public Mono<Long> delay(Duration delay) {
+        return Mono.create(sink -> {
+            Timeout timeout = new Timeout(() -> sink.success(0L), System.nanoTime() + delay.toNanos());
+            sink.onCancel(timeout::cancel);
+            pending.offer(timeout);
+        });
+    }
+
+    public void stop() {
+        stopped = true;
+        ticker.interrupt();
+    }
+
+    // --- Ticker --------------------------------------------------------------
+
+    private void run() {
+        long tick = 0;
+        while (!stopped) {
+            awaitTick(tick);
+            transferPending(tick);
+            expire(tick);
+            tick++;
+        }
+    }
+
+    private void awaitTick(long tick) {
+        long deadline = startTime + (tick + 1) * tickNanos;
+        for (;;) {
+            long sleep = deadline - System.nanoTime();
+            if (sleep <= 0 || stopped) {
+                return;
+            }
+            LockSupport.parkNanos(this, sleep);
+        }
+    }
+
+    private void transferPending(long tick) {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pending.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.cancelled) {
+                continue;
+            }
+            long expiryTick = Math.max(tick, (timeout.deadline - startTime) / tickNanos);
+            timeout.rounds = (expiryTick - tick) / wheel.length;
+
+            int bucket = (int) (expiryTick & mask);
+            timeout.next = wheel[bucket];
+            wheel[bucket] = timeout;
+        }
+    }
+
+    private void expire(long tick) {
+        int bucket = (int) (tick & mask);
+        Timeout timeout = wheel[bucket];
+        Timeout kept = null;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.rounds <= 0) {
+                if (!timeout.cancelled) {
+                    scheduler.schedule(timeout.task);
+                }
+            } else if (!timeout.cancelled) {
+                timeout.rounds--;
+                timeout.next = kept;
+                kept = timeout;
+            }
+            timeout = next;
+        }
+        wheel[bucket] = kept;
+    }
+
+    private static final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private volatile boolean cancelled;
+
+        // Owned by the ticker thread
+        private long rounds;
+        private Timeout next;
+
+        Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
+}
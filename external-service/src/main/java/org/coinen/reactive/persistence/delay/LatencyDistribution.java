@@ -0,0 +1,64 @@
+package org.coinen.reactive.persistence.delay;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulated latency of an external-service request.
+ *
+ * Specs, all values in milliseconds:
+ * <ul>
+ *     <li>{@code 1000} - fixed</li>
+ *     <li>{@code 5..20} - uniform</li>
+ *     <li>{@code lognormal:5:0.5} - log-normal with the given median and sigma</li>
+ *     <li>{@code lognormal:5:0.5|0.01|800..1200} - bimodal: the first spec, except
+ *     for the given share of requests that take the tail spec</li>
+ * </ul>
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    Duration next();
+
+    static LatencyDistribution parse(String spec) {
+        String value = spec.trim();
+        try {
+            String[] modes = value.split("\\|");
+            if (modes.length == 3) {
+                return bimodal(parse(modes[0]), Double.parseDouble(modes[1]), parse(modes[2]));
+            }
+            if (value.startsWith("lognormal:")) {
+                String[] parts = value.split(":");
+                return logNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+            }
+            int range = value.indexOf("..");
+            if (range > 0) {
+                return uniform(
+                    Long.parseLong(value.substring(0, range)),
+                    Long.parseLong(value.substring(range + 2)));
+            }
+            return fixed(Long.parseLong(value));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid latency distribution: '" + spec + "'", e);
+        }
+    }
+
+    static LatencyDistribution fixed(long millis) {
+        Duration latency = Duration.ofMillis(millis);
+        return () -> latency;
+    }
+
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        return () -> Duration.ofNanos(
+            ThreadLocalRandom.current().nextLong(minMillis * 1_000_000, maxMillis * 1_000_000 + 1));
+    }
+
+    static LatencyDistribution logNormal(double medianMillis, double sigma) {
+        return () -> Duration.ofNanos(
+            (long) (medianMillis * 1e6 * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian())));
+    }
+
+    static LatencyDistribution bimodal(LatencyDistribution body, double tailShare, LatencyDistribution tail) {
+        return () -> ThreadLocalRandom.current().nextDouble() < tailShare ? tail.next() : body.next();
+    }
+}
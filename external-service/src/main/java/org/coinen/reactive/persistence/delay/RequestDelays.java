@@ -0,0 +1,49 @@
+package org.coinen.reactive.persistence.delay;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Artificial delay of every external-service response.
+ *
+ * A {@code timeout} query param sets the delay of the request in
+ * milliseconds, other requests draw it from the latency distribution.
+ */
+@RequiredArgsConstructor
+public class RequestDelays {
+    public enum Mode {
+        // Reactor's parallel scheduler, one heap-ordered scheduled executor per core
+        PARALLEL,
+        // Hashed wheel timer, cheap for huge numbers of concurrent delays
+        WHEEL
+    }
+
+    private final LatencyDistribution latency;
+    // Null in PARALLEL mode
+    private final HashedWheelTimer timer;
+
+    public Mono<Long> delay(ServerRequest request) {
+        Duration delay = delayOf(request);
+        return timer == null ? Mono.delay(delay) : timer.delay(delay);
+    }
+
+    public void stop() {
+        if (timer != null) {
+            timer.stop();
+        }
+    }
+
+    private Duration delayOf(ServerRequest request) {
+        try {
+            return request
+                .queryParam("timeout")
+                .map(timeout -> Duration.ofMillis(Integer.parseInt(timeout)))
+                .orElseGet(latency::next);
+        } catch (Exception e) {
+            return latency.next();
+        }
+    }
+}
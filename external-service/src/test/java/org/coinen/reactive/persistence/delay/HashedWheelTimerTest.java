@@ -0,0 +1,69 @@
+package org.coinen.reactive.persistence.delay;
+
+import org.junit.After;
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HashedWheelTimerTest {
+
+    // One turn of the wheel takes 20 ms
+    private final HashedWheelTimer timer =
+        new HashedWheelTimer("testWheel", Duration.ofMillis(5), 4, Schedulers.immediate());
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void delaysExpireInDeadlineOrder() {
+        List<Integer> expired = Collections.synchronizedList(new ArrayList<>());
+
+        Mono.when(
+            timer.delay(Duration.ofMillis(60)).doOnNext(__ -> expired.add(60)),
+            timer.delay(Duration.ofMillis(10)).doOnNext(__ -> expired.add(10)),
+            timer.delay(Duration.ofMillis(35)).doOnNext(__ -> expired.add(35)))
+            .block(Duration.ofSeconds(5));
+
+        assertEquals(List.of(10, 35, 60), expired);
+    }
+
+    @Test
+    public void delayLongerThanWheelWaitsForItsRound() {
+        long start = System.nanoTime();
+
+        timer.delay(Duration.ofMillis(70)).block(Duration.ofSeconds(5));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 70);
+    }
+
+    @Test
+    public void cancelledDelayNeverExpires() throws InterruptedException {
+        AtomicBoolean expired = new AtomicBoolean();
+        Disposable cancelled = timer.delay(Duration.ofMillis(20)).subscribe(__ -> expired.set(true));
+        cancelled.dispose();
+
+        // Another delay in the same bucket still expires
+        timer.delay(Duration.ofMillis(20)).block(Duration.ofSeconds(5));
+        Thread.sleep(40);
+
+        assertFalse(expired.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wheelSizeMustBePowerOfTwo() {
+        new HashedWheelTimer("badWheel", Duration.ofMillis(1), 1000, Schedulers.immediate());
+    }
+}
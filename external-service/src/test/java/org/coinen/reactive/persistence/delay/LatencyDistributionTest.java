@@ -0,0 +1,92 @@
+package org.coinen.reactive.persistence.delay;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyDistributionTest {
+
+    @Test
+    public void fixedSpec() {
+        assertEquals(Duration.ofMillis(1000), LatencyDistribution.parse("1000").next());
+    }
+
+    @Test
+    public void uniformSpecStaysInRange() {
+        LatencyDistribution latency = LatencyDistribution.parse("800..1200");
+        for (int i = 0; i < 1000; i++) {
+            long millis = latency.next().toMillis();
+            assertTrue(millis >= 800 && millis <= 1200);
+        }
+    }
+
+    @Test
+    public void tailTakesItsShare() {
+        assertEquals(Duration.ofMillis(900), LatencyDistribution.parse("5|1.0|900").next());
+        assertEquals(Duration.ofMillis(5), LatencyDistribution.parse("5|0|900").next());
+
+        LatencyDistribution latency = LatencyDistribution.parse("5|0.1|900");
+        int tail = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (latency.next().toMillis() == 900) {
+                tail++;
+            }
+        }
+        assertEquals(1_000, tail, 200);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformedNumberIsRejected() {
+        LatencyDistribution.parse("1s");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void incompleteRangeIsRejected() {
+        LatencyDistribution.parse("800..");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tailWithoutShareIsRejected() {
+        LatencyDistribution.parse("5|900");
+    }
+
+    @Test
+    public void logNormalSpecCentersOnMedian() {
+        LatencyDistribution latency = LatencyDistribution.parse("lognormal:5:0.5");
+        int below = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (latency.next().compareTo(Duration.ofMillis(5)) < 0) {
+                below++;
+            }
+        }
+        assertEquals(5_000, below, 500);
+    }
+
+    @Test
+    public void logNormalTailIsSlowAndSkewed() {
+        LatencyDistribution latency = LatencyDistribution.parse("5|1.0|lognormal:800:0.5");
+        int overMedian = 0;
+        int overTwiceMedian = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long millis = latency.next().toMillis();
+            assertTrue(millis > 5);
+            if (millis >= 800) {
+                overMedian++;
+            }
+            if (millis >= 1600) {
+                overTwiceMedian++;
+            }
+        }
+        assertEquals(5_000, overMedian, 500);
+        // P(Z > ln 2 / 0.5) is about 8%, a long right tail
+        assertEquals(830, overTwiceMedian, 250);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void logNormalWithoutSigmaIsRejected() {
+        LatencyDistribution.parse("lognormal:800");
+    }
+}
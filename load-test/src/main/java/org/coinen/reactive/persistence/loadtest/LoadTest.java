@@ -0,0 +1,29 @@
+package org.coinen.reactive.persistence.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Open-loop load generator for the /service (blocking) and /nio/service
+ * (reactive) endpoints, reporting latency percentiles per endpoint & study.
+ *
+ * Options: --target http://localhost:8080, --studies world-gdp,europe-pop,
+ * --mode blocking|nio|both, --rate 100 (req/s in total), --duration 60 and
+ * --warm-up 10 (seconds), --timeout 1000 (external-service delay in millis).
+ */
+public final class LoadTest {
+    private LoadTest() { }
+
+    public static void main(String... args) throws InterruptedException {
+        LoadTestSettings settings = LoadTestSettings.parse(args);
+
+        List<StudyTarget> targets = new ArrayList<>();
+        for (String path : settings.paths) {
+            for (String study : settings.studies) {
+                targets.add(StudyTarget.create(settings.target, path, study, settings.timeout));
+            }
+        }
+
+        new OpenLoopDriver(settings, targets, System.out).run();
+    }
+}
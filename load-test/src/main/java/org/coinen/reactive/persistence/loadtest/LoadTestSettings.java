@@ -0,0 +1,82 @@
+package org.coinen.reactive.persistence.loadtest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Command line settings, every option has a default.
+ */
+final class LoadTestSettings {
+    final URI target;
+    final List<String> studies;
+    final List<String> paths;
+    final int rate;
+    final Duration duration;
+    final Duration warmUp;
+    final String timeout;
+
+    private LoadTestSettings(
+        URI target,
+        List<String> studies,
+        List<String> paths,
+        int rate,
+        Duration duration,
+        Duration warmUp,
+        String timeout
+    ) {
+        this.target = target;
+        this.studies = studies;
+        this.paths = paths;
+        this.rate = rate;
+        this.duration = duration;
+        this.warmUp = warmUp;
+        this.timeout = timeout;
+    }
+
+    static LoadTestSettings parse(String... args) {
+        String target = "http://localhost:8080";
+        String studies = "world-gdp,europe-pop,usa-districts-r2dbc";
+        String mode = "both";
+        int rate = 100;
+        long duration = 60;
+        long warmUp = 10;
+        String timeout = "1000";
+
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Option without value: " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--target": target = value; break;
+                case "--studies": studies = value; break;
+                case "--mode": mode = value; break;
+                case "--rate": rate = Integer.parseInt(value); break;
+                case "--duration": duration = Long.parseLong(value); break;
+                case "--warm-up": warmUp = Long.parseLong(value); break;
+                case "--timeout": timeout = value; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        return new LoadTestSettings(
+            URI.create(target),
+            Arrays.asList(studies.split(",")),
+            paths(mode),
+            rate,
+            Duration.ofSeconds(duration),
+            Duration.ofSeconds(warmUp),
+            timeout);
+    }
+
+    private static List<String> paths(String mode) {
+        switch (mode) {
+            case "blocking": return List.of("/service");
+            case "nio": return List.of("/nio/service");
+            case "both": return List.of("/service", "/nio/service");
+            default: throw new IllegalArgumentException("Unknown mode: " + mode + ", expected blocking, nio or both");
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.coinen.reactive.persistence.loadtest;
+
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a fixed rate, whether earlier ones have completed or not.
+ *
+ * Latency is measured from the time a request was scheduled to be sent, not
+ * from the time it actually was. When the driver or the client falls behind,
+ * the delay is charged to the service, so coordinated omission does not hide
+ * stalls.
+ */
+final class OpenLoopDriver {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadTestSettings settings;
+    private final List<StudyTarget> targets;
+    private final PrintStream out;
+
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .executor(Executors.newFixedThreadPool(4, daemon("load-test-client")))
+        .build();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    OpenLoopDriver(LoadTestSettings settings, List<StudyTarget> targets, PrintStream out) {
+        this.settings = settings;
+        this.targets = targets;
+        this.out = out;
+    }
+
+    void run() throws InterruptedException {
+        long periodNanos = 1_000_000_000L / settings.rate;
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmUp.toNanos();
+        long end = measureFrom + settings.duration.toNanos();
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(daemon("load-test-report"));
+        reporter.scheduleAtFixedRate(
+            this::report,
+            settings.warmUp.toNanos() + 1_000_000_000L,
+            1_000_000_000L,
+            TimeUnit.NANOSECONDS);
+
+        out.printf("%d req/s over %s (after %s warm-up) against %s%n",
+            settings.rate, settings.duration, settings.warmUp, settings.target);
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * periodNanos;
+            if (intended - end >= 0) {
+                break;
+            }
+            waitUntil(intended);
+            send(targets.get((int) (i % targets.size())), intended, intended - measureFrom >= 0);
+        }
+
+        long drainDeadline = System.nanoTime() + REQUEST_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() - drainDeadline < 0) {
+            Thread.sleep(10);
+        }
+        reporter.shutdownNow();
+        reporter.awaitTermination(1, TimeUnit.SECONDS);
+
+        targets.forEach(target -> target.summary(out));
+    }
+
+    private void send(StudyTarget target, long intended, boolean measured) {
+        HttpRequest request = HttpRequest.newBuilder(target.next())
+            .timeout(REQUEST_TIMEOUT)
+            .build();
+
+        inFlight.incrementAndGet();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, error) -> {
+                inFlight.decrementAndGet();
+                if (measured) {
+                    target.record(
+                        System.nanoTime() - intended,
+                        error == null && response.statusCode() == 200);
+                }
+            });
+    }
+
+    private void report() {
+        out.printf("--- in flight: %d%n", inFlight.get());
+        targets.forEach(target -> target.report(out, 1.0));
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package org.coinen.reactive.persistence.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One endpoint & study pair: its request URIs (one per region, taken round-robin)
+ * and latency histograms in microseconds.
+ */
+final class StudyTarget {
+    final String name;
+    private final List<URI> uris;
+    private final AtomicInteger position = new AtomicInteger();
+
+    private final Recorder recorder = new Recorder(3);
+    private final Histogram total = new Histogram(3);
+    private Histogram interval;
+    private final LongAdder errors = new LongAdder();
+
+    private StudyTarget(String name, List<URI> uris) {
+        this.name = name;
+        this.uris = uris;
+    }
+
+    static StudyTarget create(URI base, String path, String study, String timeout) {
+        List<URI> uris = new ArrayList<>();
+        for (String region : regions(study)) {
+            uris.add(base.resolve(path + "/" + study + "/" + region + "?timeout=" + timeout));
+        }
+        return new StudyTarget(path + "/" + study, uris);
+    }
+
+    URI next() {
+        return uris.get(Math.floorMod(position.getAndIncrement(), uris.size()));
+    }
+
+    void record(long latencyNanos, boolean success) {
+        recorder.recordValue(Math.max(1, latencyNanos / 1000));
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    // Called from one thread at a time: the reporter, then the final summary
+    void report(PrintStream out, double seconds) {
+        collect();
+        out.printf("%-40s %8.1f req/s  p50 %8.1f ms  p99 %8.1f ms  max %8.1f ms  errors %d%n",
+            name,
+            interval.getTotalCount() / seconds,
+            interval.getValueAtPercentile(50) / 1000.0,
+            interval.getValueAtPercentile(99) / 1000.0,
+            interval.getMaxValue() / 1000.0,
+            errors.sum());
+    }
+
+    void summary(PrintStream out) {
+        collect();
+        out.printf("%n=== %s: %d requests, %d errors%n", name, total.getTotalCount(), errors.sum());
+        total.outputPercentileDistribution(out, 1000.0);
+    }
+
+    private void collect() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+    }
+
+    private static List<String> regions(String study) {
+        Properties properties = new Properties();
+        try (InputStream data = StudyTarget.class.getResourceAsStream("/regions/" + study + ".properties")) {
+            if (data == null) {
+                throw new IllegalArgumentException("Unknown study: " + study);
+            }
+            properties.load(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<String> regions = new ArrayList<>(properties.stringPropertyNames());
+        regions.sort(null);
+        return regions;
+    }
+}
@@ -1,83 +1,467 @@
 package org.coinen.reactive.persistence;
 
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.policies.DCAwareRoundRobinPolicy;
+import com.datastax.driver.core.policies.TokenAwarePolicy;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
 import io.r2dbc.postgresql.PostgresqlConnectionFactory;
 import lombok.extern.slf4j.Slf4j;
+import org.coinen.reactive.persistence.db.CassandraReadSettings;
+import org.coinen.reactive.persistence.db.CassandraSessionMetrics;
 import org.coinen.reactive.persistence.db.DatabaseFacade;
+import org.coinen.reactive.persistence.db.EuropePopulationIndex;
 import org.coinen.reactive.persistence.db.EuropePopulationMongoRepository;
+import org.coinen.reactive.persistence.db.LookupSettings;
+import org.coinen.reactive.persistence.db.MongoDriverMetrics;
+import org.coinen.reactive.persistence.db.MongoReadSettings;
+import org.coinen.reactive.persistence.db.R2dbcConnectionPool;
+import org.coinen.reactive.persistence.db.R2dbcPoolSettings;
+import org.coinen.reactive.persistence.db.StudyHandlers;
 import org.coinen.reactive.persistence.db.UsSalesR2dbcRepository;
 import org.coinen.reactive.persistence.db.WorldGdpCassandraRepository;
 import org.coinen.reactive.persistence.db.WorldPopDensityCouchbaseRepository;
+import org.coinen.reactive.persistence.db.WorldPopDensityReads;
 import org.coinen.reactive.persistence.db.jdbc.UsSalesJdbcRepository;
 import org.coinen.reactive.persistence.external.ExternalService;
+import org.coinen.reactive.persistence.external.HedgingPolicy;
+import org.coinen.reactive.persistence.external.HedgingSettings;
+import org.coinen.reactive.persistence.external.HttpClientSettings;
+import org.coinen.reactive.persistence.external.HttpClients;
+import org.coinen.reactive.persistence.feed.StudyFeeds;
+import org.coinen.reactive.persistence.ingest.IngestSettings;
+import org.coinen.reactive.persistence.ingest.StudyIngest;
+import org.coinen.reactive.persistence.ingest.StudyWriters;
 import org.coinen.reactive.persistence.utils.AppSchedulers;
+import org.coinen.reactive.persistence.utils.Bulkhead;
+import org.coinen.reactive.persistence.utils.CircuitBreakerSettings;
+import org.coinen.reactive.persistence.utils.CircuitBreakers;
+import org.coinen.reactive.persistence.utils.ConcurrencyLimitFilter;
+import org.coinen.reactive.persistence.utils.ConcurrencyLimitSettings;
+import org.coinen.reactive.persistence.utils.ConcurrencyLimiters;
+import org.coinen.reactive.persistence.utils.DiagnosticsSettings;
+import org.coinen.reactive.persistence.utils.ExecutionMode;
+import org.coinen.reactive.persistence.utils.LatencyMeters;
+import org.coinen.reactive.persistence.utils.ReactiveDiagnostics;
+import org.coinen.reactive.persistence.utils.StudyResultEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cassandra.ClusterBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.web.codec.CodecCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
 import org.springframework.data.r2dbc.dialect.PostgresDialect;
 import org.springframework.data.r2dbc.function.DatabaseClient;
 import org.springframework.data.r2dbc.function.DefaultReactiveDataAccessStrategy;
 import org.springframework.data.r2dbc.function.ReactiveDataAccessStrategy;
 import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
 import org.springframework.data.relational.core.mapping.RelationalMappingContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.server.RouterFunction;
 import reactor.core.scheduler.Scheduler;
-import reactor.core.scheduler.Schedulers;
 
 import java.net.http.HttpClient;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.time.Duration;
+import java.util.List;
 
 @Configuration
 @Slf4j
 public class AppConfiguration {
-    static final String IO_WORKER_NAME = "ioWorker";
+    static final String HTTP_WORKER_NAME = "httpWorker";
+    static final String JDBC_WORKER_NAME = "jdbcWorker";
 
     // --- Services ------------------------------------------------------------
 
+    @Bean
+    public StudyRouter studyRouter(
+        List<Bulkhead> bulkheads,
+        @Qualifier("ioScheduler") Scheduler ioScheduler,
+        DatabaseFacade databaseFacade,
+        R2dbcConnectionPool r2dbcConnectionPool,
+        ExternalService externalService,
+        StudyFeeds studyFeeds,
+        StudyIngest studyIngest,
+        BatchSettings batchSettings,
+        LatencyMeters latencyMeters,
+        ConcurrencyLimiters concurrencyLimiters,
+        ReactiveDiagnostics reactiveDiagnostics
+    ) {
+        return StudyRouter.builder()
+            .bulkheads(bulkheads)
+            .ioScheduler(ioScheduler)
+            .dbFacade(databaseFacade)
+            .r2dbcConnectionPool(r2dbcConnectionPool)
+            .externalService(externalService)
+            .studyFeeds(studyFeeds)
+            .studyIngest(studyIngest)
+            .batchSettings(batchSettings)
+            .latencyMeters(latencyMeters)
+            .concurrencyLimiters(concurrencyLimiters)
+            .diagnostics(reactiveDiagnostics)
+            .build();
+    }
+
+    @Bean
+    public RouterFunction<?> routerFunction(StudyRouter studyRouter) {
+        return studyRouter.routerFunction();
+    }
+
     @Bean
     public ExternalService externalService(
         @Value("${external.service.url}") String externalServiceUrl,
+        @Value("${external.batch.max-size}") int maxBatchSize,
         HttpClient httpClient,
-        WebClient webClient
+        WebClient webClient,
+        HedgingSettings hedgingSettings,
+        LatencyMeters latencyMeters
     ) {
-        return new ExternalService(externalServiceUrl, httpClient, webClient);
+        return new ExternalService(
+            externalServiceUrl,
+            httpClient,
+            webClient,
+            new HedgingPolicy(hedgingSettings),
+            maxBatchSize,
+            latencyMeters);
     }
 
     @Bean
+    public BatchSettings batchSettings(@Value("${external.batch.max-regions}") int maxRegions) {
+        return new BatchSettings(maxRegions);
+    }
+
+    @Bean
+    public HedgingSettings hedgingSettings(
+        @Value("${external.deadline.default-latency-millis}") long defaultLatencyMillis,
+        @Value("${external.deadline.slack-millis}") long deadlineSlackMillis,
+        @Value("${external.hedging.enabled}") boolean enabled,
+        @Value("${external.hedging.percentile}") double percentile,
+        @Value("${external.hedging.min-samples}") long minSamples,
+        @Value("${external.hedging.budget}") double budget
+    ) {
+        return new HedgingSettings(
+            Duration.ofMillis(defaultLatencyMillis),
+            Duration.ofMillis(deadlineSlackMillis),
+            enabled,
+            percentile,
+            minSamples,
+            budget
+        );
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "dispose")
     public DatabaseFacade databaseFacade(
-        Scheduler ioScheduler,
-        WorldPopDensityCouchbaseRepository worldPopDensityCouchbaseRepository,
+        StudyHandlers studyHandlers,
+        LookupSettings lookupSettings,
+        LatencyMeters latencyMeters,
+        CircuitBreakers circuitBreakers
+    ) {
+        return new DatabaseFacade(
+            studyHandlers,
+            lookupSettings,
+            latencyMeters,
+            circuitBreakers
+        );
+    }
+
+    @Bean
+    public StudyHandlers studyHandlers(
+        @Qualifier("jdbcBulkhead") Bulkhead jdbcBulkhead,
+        WorldPopDensityReads worldPopDensityReads,
         WorldGdpCassandraRepository worldGdpCassandraRepository,
         EuropePopulationMongoRepository europePopulationMongoRepository,
         UsSalesJdbcRepository usSalesJdbcRepository,
         UsSalesR2dbcRepository usSalesR2dbcRepository
     ) {
-        return new DatabaseFacade(
-            ioScheduler,
+        return StudyHandlers.create(
+            jdbcBulkhead.scheduler(),
             worldGdpCassandraRepository,
             europePopulationMongoRepository,
-            worldPopDensityCouchbaseRepository,
+            worldPopDensityReads,
             usSalesJdbcRepository,
             usSalesR2dbcRepository
         );
     }
 
+    @Bean
+    public StudyFeeds studyFeeds(
+        DatabaseFacade databaseFacade,
+        ExternalService externalService,
+        @Value("${db.feed.poll-interval-millis}") long pollIntervalMillis
+    ) {
+        return new StudyFeeds(databaseFacade, externalService, Duration.ofMillis(pollIntervalMillis));
+    }
+
+    @Bean
+    public LookupSettings lookupSettings(
+        @Value("${db.snapshot.ttl-millis}") long snapshotTtlMillis,
+        @Value("${db.snapshot.refresh-ahead}") boolean snapshotRefreshAhead,
+        @Value("${db.collapse.enabled}") boolean collapseEnabled,
+        @Value("${db.collapse.window-millis}") long collapseWindowMillis,
+        @Value("${db.collapse.max-batch-size}") int collapseMaxBatchSize,
+        @Value("${db.collapse.max-in-flight-batches}") int collapseMaxInFlightBatches,
+        @Value("${db.replica.enabled}") boolean replicaEnabled,
+        @Value("${db.replica.refresh-millis}") long replicaRefreshMillis
+    ) {
+        return new LookupSettings(
+            Duration.ofMillis(snapshotTtlMillis),
+            snapshotRefreshAhead,
+            collapseEnabled,
+            Duration.ofMillis(collapseWindowMillis),
+            collapseMaxBatchSize,
+            collapseMaxInFlightBatches,
+            replicaEnabled,
+            Duration.ofMillis(replicaRefreshMillis)
+        );
+    }
+
+    @Bean
+    public CircuitBreakers circuitBreakers(
+        MeterRegistry meterRegistry,
+        @Value("${db.circuit-breaker.window-size}") int windowSize,
+        @Value("${db.circuit-breaker.min-calls}") int minCalls,
+        @Value("${db.circuit-breaker.failure-rate-threshold}") double failureRateThreshold,
+        @Value("${db.circuit-breaker.slow-call-millis}") long slowCallMillis,
+        @Value("${db.circuit-breaker.slow-call-rate-threshold}") double slowCallRateThreshold,
+        @Value("${db.circuit-breaker.call-timeout-millis}") long callTimeoutMillis,
+        @Value("${db.circuit-breaker.open-millis}") long openMillis,
+        @Value("${db.circuit-breaker.half-open-calls}") int halfOpenCalls
+    ) {
+        return new CircuitBreakers(meterRegistry, new CircuitBreakerSettings(
+            windowSize,
+            minCalls,
+            failureRateThreshold,
+            Duration.ofMillis(slowCallMillis),
+            slowCallRateThreshold,
+            Duration.ofMillis(callTimeoutMillis),
+            Duration.ofMillis(openMillis),
+            halfOpenCalls
+        ));
+    }
+
+    @Bean
+    public LatencyMeters latencyMeters(
+        MeterRegistry meterRegistry,
+        @Value("${metrics.latency.window-millis}") long windowMillis
+    ) {
+        return new LatencyMeters(meterRegistry, Duration.ofMillis(windowMillis));
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "dispose")
+    public ReactiveDiagnostics reactiveDiagnostics(DiagnosticsSettings diagnosticsSettings, MeterRegistry meterRegistry) {
+        return new ReactiveDiagnostics(diagnosticsSettings, meterRegistry);
+    }
+
+    @Bean
+    public DiagnosticsSettings diagnosticsSettings(
+        @Value("${diagnostics.enabled}") boolean enabled,
+        @Value("${diagnostics.fail-on-blocking}") boolean failOnBlocking,
+        @Value("${diagnostics.non-blocking-threads}") List<String> nonBlockingThreadPrefixes
+    ) {
+        return new DiagnosticsSettings(enabled, failOnBlocking, nonBlockingThreadPrefixes);
+    }
+
+    // --- Bulk ingest ---------------------------------------------------------
+
+    @Bean
+    public StudyIngest studyIngest(
+        StudyWriters studyWriters,
+        IngestSettings ingestSettings,
+        MeterRegistry meterRegistry
+    ) {
+        return new StudyIngest(studyWriters, ingestSettings, meterRegistry);
+    }
+
+    // The "local" profile acknowledges writes in-process, see LocalConfiguration
+    @Bean
+    @Profile("!local")
+    public StudyWriters studyWriters(
+        @Qualifier("jdbcBulkhead") Bulkhead jdbcBulkhead,
+        ReactiveCassandraOperations reactiveCassandraOperations,
+        ReactiveMongoOperations reactiveMongoOperations,
+        WorldPopDensityCouchbaseRepository worldPopDensityCouchbaseRepository,
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        DatabaseClient databaseClient
+    ) {
+        return StudyWriters.create(
+            jdbcBulkhead.scheduler(),
+            reactiveCassandraOperations,
+            reactiveMongoOperations,
+            worldPopDensityCouchbaseRepository,
+            jdbcTemplate,
+            transactionTemplate,
+            databaseClient
+        );
+    }
+
+    @Bean
+    public IngestSettings ingestSettings(
+        @Value("${ingest.max-batch-size}") int maxBatchSize,
+        @Value("${ingest.max-batch-delay-millis}") long maxBatchDelayMillis,
+        @Value("${ingest.max-in-flight-batches}") int maxInFlightBatches
+    ) {
+        return new IngestSettings(
+            maxBatchSize,
+            Duration.ofMillis(maxBatchDelayMillis),
+            maxInFlightBatches
+        );
+    }
+
+    // --- Codecs --------------------------------------------------------------
+
+    // Typed encoders are consulted before Jackson
+    @Bean
+    public CodecCustomizer studyResultCodec() {
+        return configurer -> configurer.customCodecs().encoder(new StudyResultEncoder());
+    }
+
+    // --- Load shedding on /nio/service ---------------------------------------
+
+    @Bean
+    public ConcurrencyLimitFilter concurrencyLimitFilter(
+        ConcurrencyLimiters concurrencyLimiters,
+        DatabaseFacade databaseFacade
+    ) {
+        return new ConcurrencyLimitFilter(concurrencyLimiters, databaseFacade::backendOf);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConcurrencyLimiters concurrencyLimiters(
+        MeterRegistry meterRegistry,
+        ConcurrencyLimitSettings concurrencyLimitSettings
+    ) {
+        return new ConcurrencyLimiters(meterRegistry, concurrencyLimitSettings);
+    }
+
+    @Bean
+    public ConcurrencyLimitSettings concurrencyLimitSettings(
+        @Value("${limiter.enabled}") boolean enabled,
+        @Value("${limiter.initial-limit}") int initialLimit,
+        @Value("${limiter.min-limit}") int minLimit,
+        @Value("${limiter.max-limit}") int maxLimit,
+        @Value("${limiter.adjust-interval-millis}") long adjustIntervalMillis,
+        @Value("${limiter.queue-size}") int queueSize,
+        @Value("${limiter.queue-timeout-millis}") long queueTimeoutMillis
+    ) {
+        return new ConcurrencyLimitSettings(
+            enabled,
+            initialLimit,
+            minLimit,
+            maxLimit,
+            Duration.ofMillis(adjustIntervalMillis),
+            queueSize,
+            Duration.ofMillis(queueTimeoutMillis)
+        );
+    }
+
+    // --- Cassandra configuration ---------------------------------------------
+
+    // The driver's default as well, routing works for statements with a
+    // routing key, i.e. bound ones (see WorldGdpCassandraReadsImpl)
+    @Bean
+    @Profile("!local")
+    public ClusterBuilderCustomizer cassandraLoadBalancing() {
+        return builder -> builder.withLoadBalancingPolicy(
+            new TokenAwarePolicy(DCAwareRoundRobinPolicy.builder().build()));
+    }
+
+    @Bean
+    @Profile("!local")
+    public CassandraSessionMetrics cassandraSessionMetrics(Session session) {
+        return new CassandraSessionMetrics(session);
+    }
+
+    @Bean
+    public CassandraReadSettings cassandraReadSettings(
+        @Value("${db.cassandra.consistency}") ConsistencyLevel consistency,
+        @Value("${db.cassandra.scan-fetch-size}") int scanFetchSize,
+        @Value("${db.cassandra.async-multi-get}") boolean asyncMultiGet,
+        @Value("${db.cassandra.max-concurrent-reads}") int maxConcurrentReads
+    ) {
+        return new CassandraReadSettings(consistency, scanFetchSize, asyncMultiGet, maxConcurrentReads);
+    }
+
+    // --- Mongo configuration -------------------------------------------------
+
+    @Bean
+    @Profile("!local")
+    public MongoDriverMetrics mongoDriverMetrics(MeterRegistry meterRegistry) {
+        return new MongoDriverMetrics(meterRegistry);
+    }
+
+    @Bean
+    @Profile("!local")
+    public MongoClientSettingsBuilderCustomizer mongoDriverListeners(MongoDriverMetrics mongoDriverMetrics) {
+        return builder -> builder
+            .addCommandListener(mongoDriverMetrics.commandListener())
+            .applyToConnectionPoolSettings(pool ->
+                pool.addConnectionPoolListener(mongoDriverMetrics.connectionPoolListener()));
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "dispose")
+    @Profile("!local")
+    public EuropePopulationIndex europePopulationIndex(ReactiveMongoOperations reactiveMongoOperations) {
+        return new EuropePopulationIndex(reactiveMongoOperations);
+    }
+
+    @Bean
+    public MongoReadSettings mongoReadSettings(@Value("${db.mongo.batch-size}") int batchSize) {
+        return new MongoReadSettings(batchSize);
+    }
+
     // --- R2DBC configuration -------------------------------------------------
     @Bean
-    public DatabaseClient databaseClient(
+    public DatabaseClient databaseClient(R2dbcConnectionPool r2dbcConnectionPool) {
+        return DatabaseClient.create(r2dbcConnectionPool);
+    }
+
+    // The "local" profile pools in-memory H2 connections instead, see LocalConfiguration
+    @Bean(destroyMethod = "dispose")
+    @Profile("!local")
+    public R2dbcConnectionPool r2dbcConnectionPool(
         @Value("${spring.datasource.url}") String url,
         @Value("${spring.datasource.username}") String user,
-        @Value("${spring.datasource.password}") String password
+        @Value("${spring.datasource.password}") String password,
+        R2dbcPoolSettings r2dbcPoolSettings
     ) {
         // Parse database connection params into R2DBC friendly format
         var host = url.substring(url.indexOf("//") + 2, url.lastIndexOf(":"));
         var port = Integer.parseInt(url.substring(url.lastIndexOf(":") + 1, url.lastIndexOf("/")));
         var database = url.substring(url.lastIndexOf("/") + 1);
 
-        return databaseClient(host, port, database, user, password);
+        return new R2dbcConnectionPool(
+            connectionFactory(host, port, database, user, password),
+            r2dbcPoolSettings);
     }
 
-    private DatabaseClient databaseClient(
+    @Bean
+    public R2dbcPoolSettings r2dbcPoolSettings(
+        @Value("${db.r2dbc.pool.min-size}") int minSize,
+        @Value("${db.r2dbc.pool.max-size}") int maxSize,
+        @Value("${db.r2dbc.pool.acquire-timeout-millis}") long acquireTimeoutMillis,
+        @Value("${db.r2dbc.pool.max-idle-time-millis}") long maxIdleTimeMillis,
+        @Value("${db.r2dbc.pool.eviction-interval-millis}") long evictionIntervalMillis,
+        @Value("${db.r2dbc.pool.validation-query}") String validationQuery
+    ) {
+        return new R2dbcPoolSettings(
+            minSize,
+            maxSize,
+            Duration.ofMillis(acquireTimeoutMillis),
+            Duration.ofMillis(maxIdleTimeMillis),
+            Duration.ofMillis(evictionIntervalMillis),
+            validationQuery
+        );
+    }
+
+    private PostgresqlConnectionFactory connectionFactory(
         String host,
         int port,
         String database,
@@ -86,15 +470,12 @@ public class AppConfiguration {
     ) {
         log.info("Reactive Postgres config. Host: '{}', DB: '{}', user: '{}'", host, database, user);
 
-        var connectionFactory =
-            new PostgresqlConnectionFactory(PostgresqlConnectionConfiguration.builder()
-                .host(host)
-                .port(port)
-                .database(database)
-                .username(user)
-                .password(password).build());
-
-        return DatabaseClient.create(connectionFactory);
+        return new PostgresqlConnectionFactory(PostgresqlConnectionConfiguration.builder()
+            .host(host)
+            .port(port)
+            .database(database)
+            .username(user)
+            .password(password).build());
     }
 
     @Bean
@@ -120,24 +501,64 @@ public class AppConfiguration {
 
     // --- Workers, http clients -----------------------------------------------
 
-    @Bean("ioWorker")
-    public ThreadPoolExecutor executor(@Value("${io.worker.size}") int ioWorkerSize){
-        return AppSchedulers.newExecutor(IO_WORKER_NAME, ioWorkerSize);
+    @Bean(name = "httpBulkhead", destroyMethod = "dispose")
+    public Bulkhead httpBulkhead(
+        @Value("${io.http.mode}") ExecutionMode mode,
+        @Value("${io.http.min-size}") int minSize,
+        @Value("${io.http.max-size}") int maxSize,
+        @Value("${io.http.queue-size}") int queueSize,
+        @Value("${io.adjust-interval-millis}") long adjustIntervalMillis
+    ) {
+        if (mode == ExecutionMode.VIRTUAL) {
+            log.info("Blocking requests are executed on virtual threads");
+            return AppSchedulers.newVirtualThreadBulkhead(
+                HTTP_WORKER_NAME, Duration.ofMillis(adjustIntervalMillis));
+        }
+        return AppSchedulers.newBulkhead(
+            HTTP_WORKER_NAME, minSize, maxSize, queueSize, Duration.ofMillis(adjustIntervalMillis));
+    }
+
+    @Bean(name = "jdbcBulkhead", destroyMethod = "dispose")
+    public Bulkhead jdbcBulkhead(
+        @Value("${io.jdbc.min-size}") int minSize,
+        @Value("${io.jdbc.max-size}") int maxSize,
+        @Value("${io.jdbc.queue-size}") int queueSize,
+        @Value("${io.adjust-interval-millis}") long adjustIntervalMillis
+    ) {
+        return AppSchedulers.newBulkhead(
+            JDBC_WORKER_NAME, minSize, maxSize, queueSize, Duration.ofMillis(adjustIntervalMillis));
     }
 
     @Bean("ioScheduler")
-    public Scheduler ioScheduler(ThreadPoolExecutor executor) {
-        return Schedulers.fromExecutor(executor);
+    public Scheduler ioScheduler(@Qualifier("httpBulkhead") Bulkhead httpBulkhead) {
+        return httpBulkhead.scheduler();
+    }
+
+    @Bean
+    public HttpClientSettings httpClientSettings(
+        @Value("${external.http.version}") HttpClient.Version version,
+        @Value("${external.http.max-connections}") int maxConnections,
+        @Value("${external.http.acquire-timeout-millis}") long acquireTimeoutMillis,
+        @Value("${external.http.idle-timeout-millis}") long idleTimeoutMillis
+    ) {
+        return new HttpClientSettings(
+            version,
+            maxConnections,
+            Duration.ofMillis(acquireTimeoutMillis),
+            Duration.ofMillis(idleTimeoutMillis)
+        );
     }
 
     @Bean
-    public HttpClient httpClient(){
-        return HttpClient.newBuilder().build();
+    public HttpClient httpClient(HttpClientSettings httpClientSettings){
+        return HttpClients.newJdkClient(httpClientSettings);
     }
 
     @Bean
-    public WebClient webClient(){
-        return WebClient.builder().build();
+    public WebClient webClient(HttpClientSettings httpClientSettings){
+        return WebClient.builder()
+            .clientConnector(new ReactorClientHttpConnector(HttpClients.newNettyClient(httpClientSettings)))
+            .build();
     }
 
 }
@@ -0,0 +1,9 @@
+package org.coinen.reactive.persistence;
+
+import lombok.Value;
+
+@Value
+public class BatchSettings {
+    // Max distinct regions per batch request, larger ones are rejected
+    private final int maxRegions;
+}
@@ -3,6 +3,7 @@ package org.coinen.reactive.persistence;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.couchbase.config.AbstractCouchbaseConfiguration;
 import org.springframework.data.couchbase.repository.config.EnableCouchbaseRepositories;
 
@@ -10,7 +11,9 @@ import java.util.List;
 
 import static java.util.Collections.singletonList;
 
+// The "local" profile has an in-process stand-in instead, see LocalConfiguration
 @Configuration
+@Profile("!local")
 @EnableCouchbaseRepositories
 public class CouchbaseConfig extends AbstractCouchbaseConfiguration {
     private final String clusterHost;
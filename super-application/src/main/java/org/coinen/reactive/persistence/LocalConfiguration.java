@@ -0,0 +1,112 @@
+package org.coinen.reactive.persistence;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import org.coinen.reactive.persistence.db.EuropePopulationMongoRepository;
+import org.coinen.reactive.persistence.db.R2dbcConnectionPool;
+import org.coinen.reactive.persistence.db.R2dbcPoolSettings;
+import org.coinen.reactive.persistence.db.StudyHandler;
+import org.coinen.reactive.persistence.db.StudyHandlers;
+import org.coinen.reactive.persistence.db.UsSalesR2dbcRepository;
+import org.coinen.reactive.persistence.db.WorldGdpCassandraRepository;
+import org.coinen.reactive.persistence.db.WorldPopDensityReads;
+import org.coinen.reactive.persistence.db.jdbc.UsSalesJdbcRepository;
+import org.coinen.reactive.persistence.db.local.LatencyDistribution;
+import org.coinen.reactive.persistence.db.local.LocalRepositories;
+import org.coinen.reactive.persistence.ingest.StudyWriter;
+import org.coinen.reactive.persistence.ingest.StudyWriters;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.function.DatabaseClient;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * "local" profile: in-process stand-ins for all databases, so the application
+ * runs on one box without the docker-compose stack. Cassandra, Mongo &
+ * Couchbase auto-configuration is turned off in application-local.yml. The
+ * R2DBC study queries an in-memory H2 through the R2DBC connection pool (shown
+ * on /status), the others read in-memory tables.
+ */
+@Configuration
+@Profile("local")
+public class LocalConfiguration {
+
+    @Bean
+    @Primary
+    public WorldGdpCassandraRepository localWorldGdpRepository(
+        @Value("${local.latency.cassandra}") String latency
+    ) {
+        return LocalRepositories.worldGdp(LatencyDistribution.parse(latency));
+    }
+
+    @Bean
+    @Primary
+    public EuropePopulationMongoRepository localEuropePopulationRepository(
+        @Value("${local.latency.mongo}") String latency
+    ) {
+        return LocalRepositories.europePopulation(LatencyDistribution.parse(latency));
+    }
+
+    @Bean
+    @Primary
+    public WorldPopDensityReads localWorldPopDensityRepository(
+        @Value("${local.latency.couchbase}") String latency
+    ) {
+        return LocalRepositories.worldPopDensity(LatencyDistribution.parse(latency));
+    }
+
+    @Bean
+    @Primary
+    public UsSalesJdbcRepository localUsSalesJdbcRepository(
+        @Value("${local.latency.jdbc}") String latency
+    ) {
+        return LocalRepositories.usSalesJdbc(LatencyDistribution.parse(latency));
+    }
+
+    @Bean
+    @Primary
+    public UsSalesR2dbcRepository localUsSalesR2dbcRepository(
+        DatabaseClient databaseClient,
+        @Value("${local.latency.r2dbc}") String latency
+    ) {
+        return LocalRepositories.usSalesR2dbc(databaseClient, LatencyDistribution.parse(latency));
+    }
+
+    @Bean
+    public StudyWriters localStudyWriters(
+        StudyHandlers studyHandlers,
+        @Value("${local.latency.cassandra}") String cassandra,
+        @Value("${local.latency.mongo}") String mongo,
+        @Value("${local.latency.couchbase}") String couchbase,
+        @Value("${local.latency.jdbc}") String jdbc,
+        @Value("${local.latency.r2dbc}") String r2dbc
+    ) {
+        Map<String, LatencyDistribution> latencies = Map.of(
+            "cassandra", LatencyDistribution.parse(cassandra),
+            "mongo", LatencyDistribution.parse(mongo),
+            "couchbase", LatencyDistribution.parse(couchbase),
+            "jdbc", LatencyDistribution.parse(jdbc),
+            "r2dbc", LatencyDistribution.parse(r2dbc));
+        return new StudyWriters(studyHandlers.all().stream()
+            .filter(StudyHandler::hasPersistedData)
+            .map(handler -> new StudyWriter(
+                handler.getStudy(),
+                handler.getBackend(),
+                LocalRepositories.bulkWrite(latencies.get(handler.getBackend()))))
+            .collect(Collectors.toList()));
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public R2dbcConnectionPool r2dbcConnectionPool(R2dbcPoolSettings r2dbcPoolSettings) {
+        return new R2dbcConnectionPool(
+            new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url("mem:local;DB_CLOSE_DELAY=-1")
+                .build()),
+            r2dbcPoolSettings);
+    }
+}
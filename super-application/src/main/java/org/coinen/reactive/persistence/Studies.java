@@ -1,18 +1,35 @@
 package org.coinen.reactive.persistence;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
-// TODO: Use this enum instead of hard-coded values
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Getter
 @RequiredArgsConstructor
 public enum Studies {
     UKRAINE_WEATHR_4_SYNC("uk-sync"),
     UKRAINE_WEATHR_27_ASYNC("uk-async"),
     WORLD_GDP("world-gdp"),
     EUROPE_POP("europe-pop"),
-    WORLD_POP_DENSITY("world-pop-des"),
+    WORLD_POP_DENSITY("world-pop-dens"),
     US_SALES_JDBC("usa-districts-jdbc"),
     US_DISTRICS_R2DBC("usa-districts-r2dbc"),
     US_DISTRICS_BLOCKING("usa-districts-all-blocking");
 
+    private static final Map<String, Studies> BY_NAME = Stream.of(values())
+        .collect(Collectors.toMap(Studies::getName, Function.identity()));
+
+    // Name used in URLs
     private final String name;
+
+    /**
+     * @return study with the given URL name, null when there is none
+     */
+    public static Studies byName(String name) {
+        return BY_NAME.get(name);
+    }
 }
@@ -0,0 +1,271 @@
+package org.coinen.reactive.persistence;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.coinen.reactive.persistence.db.DatabaseFacade;
+import org.coinen.reactive.persistence.db.R2dbcConnectionPool;
+import org.coinen.reactive.persistence.external.ExternalService;
+import org.coinen.reactive.persistence.external.ExternalStudyDto;
+import org.coinen.reactive.persistence.feed.StudyFeeds;
+import org.coinen.reactive.persistence.ingest.StudyIngest;
+import org.coinen.reactive.persistence.model.AppStatusDto;
+import org.coinen.reactive.persistence.model.IngestResultDto;
+import org.coinen.reactive.persistence.model.RegionResultDto;
+import org.coinen.reactive.persistence.model.StudyBatchRequestDto;
+import org.coinen.reactive.persistence.model.StudyRecordDto;
+import org.coinen.reactive.persistence.model.StudyRequestDto;
+import org.coinen.reactive.persistence.model.StudyResultDto;
+import org.coinen.reactive.persistence.utils.Bulkhead;
+import org.coinen.reactive.persistence.utils.ConcurrencyLimiters;
+import org.coinen.reactive.persistence.utils.LatencyMeters;
+import org.coinen.reactive.persistence.utils.ReactiveDiagnostics;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.result.view.Rendering;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.coinen.reactive.persistence.utils.LatencyMeters.Kind.BLOCKING;
+import static org.coinen.reactive.persistence.utils.LatencyMeters.Kind.REACTIVE;
+import static org.coinen.reactive.persistence.utils.MonitoringUtils.toAppStatus;
+import static org.coinen.reactive.persistence.utils.ReactiveDiagnostics.blocking;
+import static org.coinen.reactive.persistence.utils.SerializationUtils.parseBatchRequest;
+import static org.coinen.reactive.persistence.utils.SerializationUtils.parseRequest;
+import static org.coinen.reactive.persistence.utils.SerializationUtils.parseStudy;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RouterFunctions.resources;
+import static org.springframework.web.reactive.function.server.ServerResponse.notFound;
+import static org.springframework.web.reactive.function.server.ServerResponse.ok;
+
+/**
+ * Routes of the application and their handlers.
+ *
+ * Built with the builder by AppConfiguration, and the same way outside of
+ * Spring by the benchmarks, which leave out the services of routes they do
+ * not call.
+ */
+@Builder
+@Slf4j
+public class StudyRouter {
+    // Services
+    private final List<Bulkhead> bulkheads;
+    private final Scheduler ioScheduler;
+
+    private final DatabaseFacade dbFacade;
+    private final R2dbcConnectionPool r2dbcConnectionPool;
+    private final ExternalService externalService;
+    private final StudyFeeds studyFeeds;
+    private final StudyIngest studyIngest;
+    private final BatchSettings batchSettings;
+
+    // Statistics
+    private final LatencyMeters latencyMeters;
+    private final ConcurrencyLimiters concurrencyLimiters;
+    private final ReactiveDiagnostics diagnostics;
+    private final AtomicInteger activeRequests = new AtomicInteger(0);
+
+    public RouterFunction<?> routerFunction() {
+        return RouterFunctions
+            .route(
+                GET("/"),
+                request -> ok().render(
+                    "index",
+                    Rendering.view("index"))
+            ).andRoute(
+                GET("/service/{study}/{region}"),
+                request -> {
+                    StudyRequestDto studyRequest = parseRequest(request);
+                    return ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(
+                            withMetrics(BLOCKING, studyRequest, processRequestBlocking(studyRequest)),
+                            StudyResultDto.class);
+                }
+            ).andRoute(
+                GET("/nio/service/{study}/{region}"),
+                request -> {
+                    StudyRequestDto studyRequest = parseRequest(request);
+                    return ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(
+                            withMetrics(REACTIVE, studyRequest, processRequestReactive(studyRequest)),
+                            StudyResultDto.class);
+                }
+            ).andRoute(
+                GET("/nio/service/{study}").or(POST("/nio/service/{study}")),
+                request -> ok()
+                    .contentType(streamingType(request))
+                    .body(
+                        parseBatchRequest(request, batchSettings.getMaxRegions())
+                            .flatMapMany(batch -> withMetrics(processBatchReactive(batch))),
+                        RegionResultDto.class)
+            ).andRoute(
+                GET("/nio/stream/{study}"),
+                request -> studyFeeds.updates(parseStudy(request))
+                    .map(updates -> ok()
+                        .contentType(MediaType.TEXT_EVENT_STREAM)
+                        .body(updates, RegionResultDto.class))
+                    .orElseGet(() -> notFound().build())
+            ).andRoute(
+                // Newline delimited {"region": ..., "value": ...} records, sent as
+                // application/stream+json (or one JSON array, decoded as it arrives)
+                POST("/nio/ingest/{study}"),
+                request -> studyIngest.ingest(parseStudy(request), request.bodyToFlux(StudyRecordDto.class))
+                    .map(result -> ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(result, IngestResultDto.class))
+                    .orElseGet(() -> notFound().build())
+            ).andRoute(
+                GET("/status"),
+                request -> ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body(applicationStatus(), AppStatusDto.class)
+            ).andOther(
+                resources("/**", new ClassPathResource("/static"))
+            );
+    }
+
+    public int getActiveRequests() {
+        return activeRequests.get();
+    }
+
+    // --- Blocking handling ---------------------------------------------------
+
+    private Mono<StudyResultDto> processRequestBlocking(StudyRequestDto studyRequest) {
+        if (!dbFacade.hasPersistedData(studyRequest.getStudy())) {
+            return Mono.fromCallable(
+                () -> {
+                    ExternalStudyDto externalStudyDto = externalService.syncRequest(studyRequest);
+                    return StudyResultDto.temperature(externalStudyDto.getValue());
+                })
+                .subscribeOn(ioScheduler);
+        } else {
+            return Mono.zip(
+                Mono.fromCallable(() -> externalService.syncRequest(studyRequest))
+                    .subscribeOn(ioScheduler),
+                Mono.fromCallable(blocking("block", () -> dbFacade.resolvePersistedData(studyRequest).block()))
+                    .subscribeOn(ioScheduler),
+                (external, persisted) ->
+                    StudyResultDto.generic(external.getValue(), persisted)
+            );
+        }
+    }
+
+    // ---- Async handling -----------------------------------------------------
+
+    private Mono<StudyResultDto> processRequestReactive(StudyRequestDto studyRequest) {
+        if (!dbFacade.hasPersistedData(studyRequest.getStudy())) {
+            return externalService.reactiveRequest(studyRequest)
+                .map(externalData -> StudyResultDto.temperature(externalData.getValue()));
+        } else {
+            return Mono.zip(
+                externalService.reactiveRequest(studyRequest),
+                persistedOrDegraded(studyRequest),
+                (external, persisted) -> toResult(external.getValue(), persisted)
+            ).doOnError(e -> log.warn("Error:", e));
+        }
+    }
+
+    // Streams results as each region resolves: one external call per chunk of
+    // regions, DB lookups of the same study collapse in the DatabaseFacade.
+    // Every region gets a result, one without an external value has no color value
+    private Flux<RegionResultDto> processBatchReactive(StudyBatchRequestDto batch) {
+        return Flux.fromIterable(batch.getRegions())
+            .buffer(externalService.getMaxBatchSize())
+            .flatMap(regions -> {
+                Mono<Map<String, Double>> external = externalService
+                    .reactiveBatchRequest(new StudyBatchRequestDto(batch.getStudy(), regions, batch.getTimout()))
+                    .cache();
+                return Flux.fromIterable(regions)
+                    .flatMap(region -> resolveRegion(batch.forRegion(region), external));
+            })
+            .doOnError(e -> log.warn("Error:", e));
+    }
+
+    private Mono<RegionResultDto> resolveRegion(StudyRequestDto studyRequest, Mono<Map<String, Double>> external) {
+        Mono<Optional<Double>> value = external
+            .map(values -> Optional.ofNullable(values.get(studyRequest.getRegion())));
+
+        Mono<StudyResultDto> result;
+        if (!dbFacade.hasPersistedData(studyRequest.getStudy())) {
+            result = value.map(externalValue -> StudyResultDto.temperature(externalValue.orElse(null)));
+        } else {
+            result = Mono.zip(
+                value,
+                persistedOrDegraded(studyRequest),
+                (externalValue, persisted) -> toResult(externalValue.orElse(null), persisted));
+        }
+        return result.map(studyResult -> new RegionResultDto(studyRequest.getRegion(), studyResult));
+    }
+
+    // A failing backend degrades the result instead of failing the whole request
+    private Mono<Optional<Object>> persistedOrDegraded(StudyRequestDto studyRequest) {
+        return dbFacade.resolvePersistedData(studyRequest)
+            .map(Optional::of)
+            .onErrorResume(e -> {
+                log.debug("Persisted data of {}/{} is unavailable: {}",
+                    studyRequest.getStudy().getName(), studyRequest.getRegion(), e.toString());
+                return Mono.just(Optional.empty());
+            });
+    }
+
+    private StudyResultDto toResult(Double external, Optional<Object> persisted) {
+        return persisted
+            .map(value -> StudyResultDto.generic(external, value))
+            .orElseGet(() -> StudyResultDto.degraded(external));
+    }
+
+    private static MediaType streamingType(ServerRequest request) {
+        return request.headers().accept().contains(MediaType.TEXT_EVENT_STREAM) ?
+            MediaType.TEXT_EVENT_STREAM :
+            MediaType.APPLICATION_STREAM_JSON;
+    }
+
+    // --- App's metrics -------------------------------------------------------
+    private Flux<AppStatusDto> applicationStatus() {
+        return Flux.combineLatest(
+            Flux.interval(Duration.ofMillis(250)),
+            externalService.serviceStatus(),
+            (__, externalStatus) ->
+                toAppStatus(
+                    bulkheads,
+                    r2dbcConnectionPool,
+                    externalService.hedgingStatus(),
+                    latencyMeters,
+                    concurrencyLimiters,
+                    dbFacade.circuitBreakerStatus(),
+                    diagnostics.toStatus(),
+                    activeRequests.get(),
+                    externalStatus)
+        );
+    }
+
+    private Mono<StudyResultDto> withMetrics(
+        LatencyMeters.Kind kind,
+        StudyRequestDto studyRequest,
+        Mono<StudyResultDto> stream
+    ) {
+        String study = studyRequest.getStudy().getName();
+        return diagnostics.trace(kind, study, latencyMeters.meter(kind, study)
+            .time(stream)
+            .doOnSubscribe(s -> activeRequests.incrementAndGet())
+            .doFinally(s -> activeRequests.decrementAndGet()));
+    }
+
+    private Flux<RegionResultDto> withMetrics(Flux<RegionResultDto> stream) {
+        return stream
+            .doOnSubscribe(s -> activeRequests.incrementAndGet())
+            .doFinally(s -> activeRequests.decrementAndGet());
+    }
+}
@@ -0,0 +1,15 @@
+package org.coinen.reactive.persistence.db;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import lombok.Value;
+
+@Value
+public class CassandraReadSettings {
+    private final ConsistencyLevel consistency;
+    // Rows per page of a scan, one page for a whole study table
+    private final int scanFetchSize;
+
+    // Several partitions: concurrent point reads, or one IN query otherwise
+    private final boolean asyncMultiGet;
+    private final int maxConcurrentReads;
+}
@@ -0,0 +1,42 @@
+package org.coinen.reactive.persistence.db;
+
+import com.datastax.driver.core.Host;
+import com.datastax.driver.core.Session;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.function.ToIntBiFunction;
+
+/**
+ * In-flight requests and connection pool of the Cassandra driver session,
+ * summed over the connected hosts.
+ */
+public class CassandraSessionMetrics implements MeterBinder {
+    private final Session session;
+
+    public CassandraSessionMetrics(Session session) {
+        this.session = session;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.cassandra.in.flight", this, m -> m.sum(Session.State::getInFlightQueries))
+            .description("Requests sent and not answered yet")
+            .register(registry);
+        Gauge.builder("app.cassandra.connections", this, m -> m.sum(Session.State::getOpenConnections))
+            .register(registry);
+        Gauge.builder("app.cassandra.connections.trashed", this, m -> m.sum(Session.State::getTrashedConnections))
+            .description("Connections closed after the pool shrank, kept until their requests complete")
+            .register(registry);
+    }
+
+    private double sum(ToIntBiFunction<Session.State, Host> metric) {
+        Session.State state = session.getState();
+        int sum = 0;
+        for (Host host : state.getConnectedHosts()) {
+            sum += metric.applyAsInt(state, host);
+        }
+        return sum;
+    }
+}
@@ -2,141 +2,167 @@ package org.coinen.reactive.persistence.db;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.coinen.reactive.persistence.db.jdbc.UsSalesJdbcRepository;
+import org.coinen.reactive.persistence.Studies;
+import org.coinen.reactive.persistence.model.CircuitBreakerStatusDto;
 import org.coinen.reactive.persistence.model.StudyRequestDto;
+import org.coinen.reactive.persistence.utils.CircuitBreakers;
+import org.coinen.reactive.persistence.utils.LatencyMeters;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Scheduler;
 
-import java.time.Duration;
-import java.time.Instant;
-import java.util.Random;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import static java.time.Duration.between;
-import static java.time.Instant.now;
+import static org.coinen.reactive.persistence.utils.LatencyMeters.Kind.BACKEND;
 
 @Slf4j
 @RequiredArgsConstructor
 public class DatabaseFacade {
-    private final Random rnd = new Random();
+    // Backend, cache & batching policy of every study
+    private final StudyHandlers handlers;
 
-    // Changing Mongo latency
-    private final boolean batchedRequest = true;
-    private final int latency = 2500;
+    // Snapshot & request collapsing settings
+    private final LookupSettings settings;
 
-    // IO scheduler for executing blocking requests
-    private final Scheduler ioScheduler;
+    // Latency & outcome per backend
+    private final LatencyMeters latencyMeters;
 
-    // Repositories for different DBs
-    private final WorldGdpCassandraRepository worldGdpCassandraRepository;
-    private final EuropePopulationMongoRepository europePopulationMongoRepository;
-    private final WorldPopDensityCouchbaseRepository worldPopDensityCouchbaseRepository;
-    private final UsSalesJdbcRepository usSalesJdbcRepository;
-    private final UsSalesR2dbcRepository usSalesR2dbcRepository;
+    // Fail fast on a backend that is down or slow
+    private final CircuitBreakers circuitBreakers;
 
+    // Last value per study & region, served while a lookup fails
+    private final ConcurrentMap<String, Object> lastValues = new ConcurrentHashMap<>();
+
+    // Region-keyed snapshots of SNAPSHOT studies and live feeds, one per study
+    private final ConcurrentMap<Studies, RegionSnapshotCache<?, Object>> snapshots = new ConcurrentHashMap<>();
+
+    // Point lookup batchers of COLLAPSED studies, one per study
+    private final ConcurrentMap<Studies, RegionBatcher<?, Object>> batchers = new ConcurrentHashMap<>();
+
+    // In-process replicas of numeric studies, when enabled
+    private final ConcurrentMap<Studies, RegionReplica<?>> replicas = new ConcurrentHashMap<>();
 
     public Mono<Object> resolvePersistedData(StudyRequestDto request) {
-        switch (request.getStudy()) {
-            case "world-gdp":
-                return withTiming(worldGdpCassandra(request.getRegion()), "Cassandra");
-            case "europe-pop":
-                return withTiming(europePopulationMongo(request.getRegion()), "Mongo");
-            case "world-pop-dens":
-                return withTiming(worldPopDensityCouch(request.getRegion()), "Couchbase");
-            case "usa-districts-jdbc":
-                return withTiming(usSalesJdbc(request.getRegion()), "JDBC");
-            case "usa-districts-r2dbc":
-                return withTiming(usSalesR2Dbc(request.getRegion()), "R2DBC");
-            case "usa-districts-all-blocking":
-                return withTiming(usSalesR2Dbc(request.getRegion()), "JDBC");
-            default:
-                log.info("Have no datasource for study '{}', returning random data", request.getStudy());
-                return Mono.delay(Duration.ofSeconds(2))
-                    .map(__ -> randomDoubleValue());
+        RegionReplica<?> replica = replicas.get(request.getStudy());
+        RegionReplica.Table table = replica == null ? null : replica.table();
+        if (table != null) {
+            // Served in-process, the backend is neither metered nor guarded
+            int id = table.id(request.getRegion());
+            return id < 0 ? Mono.empty() : Mono.just(table.value(id));
         }
+        StudyHandler<?> handler = handlers.get(request.getStudy());
+        return guarded(lookup(handler, request.getRegion()), request, handler.getBackend());
     }
 
-    private Mono<Object> worldPopDensityCouch(String region) {
-        if (batchedRequest) {
-            return worldPopDensityCouchbaseRepository
-                .findByDensityLessThan10000()
-                //.doOnNext(r -> log.debug(" [Couchbase -> App]: {}", r))
-                .filter(dto -> region.equals(dto.getId()))
-                .next()
-                .map(WorldPopDensityDto::getDensity);
-        } else {
-            return worldPopDensityCouchbaseRepository
-                .findById(region)
-                .map(WorldPopDensityDto::getDensity);
-        }
+    /**
+     * Loads the replicas of all numeric studies and keeps refreshing them.
+     * Until its first load completes a study is read through its lookup policy.
+     */
+    public void start() {
+        warmUp().subscribe(__ -> { }, e -> log.warn("Replica warm-up failed", e));
+        replicas.values().forEach(RegionReplica::start);
     }
 
-    private Mono<Object> europePopulationMongo(String region) {
-        if (batchedRequest) {
-            return europePopulationMongoRepository
-                .findAll()
-                //.doOnNext(r -> log.debug(" [Mongo -> App]: {}", r))
-                .filter(dto -> region.equals(dto.getCode()))
-                .next()
-                .map(EuropePopulationDto::getPopulation);
-        } else {
-            return europePopulationMongoRepository
-                .findByCodeWithLatency(region, latency)
-                .map(EuropePopulationDto::getPopulation);
+    /**
+     * Loads the replicas of all numeric studies once, does nothing when
+     * replicas are disabled.
+     */
+    public Mono<Void> warmUp() {
+        if (!settings.isReplicaEnabled()) {
+            return Mono.empty();
         }
+        return Flux.fromIterable(handlers.all())
+            .filter(StudyHandler::isReplicable)
+            .flatMap(handler -> replica(handler).refresh()
+                .onErrorResume(e -> {
+                    log.warn("[{} replica] warm-up failed", handler.getStudy().getName(), e);
+                    return Mono.empty();
+                }))
+            .then();
     }
 
-    private Mono<Object> worldGdpCassandra(String region) {
-        if (batchedRequest) {
-            return worldGdpCassandraRepository
-                .findAll()
-                //.doOnNext(r -> log.debug(" [Cassandra -> App]: {}", r))
-                .filter(dto -> region.equals(dto.getCountry_code()))
-                .next()
-                .map(WorldGdpDto::getGdp);
-        } else {
-            return worldGdpCassandraRepository
-                .findById(region)
-                .map(WorldGdpDto::getGdp);
-        }
+    public void dispose() {
+        replicas.values().forEach(RegionReplica::dispose);
+    }
+
+    private <T> RegionReplica<?> replica(StudyHandler<T> handler) {
+        return replicas.computeIfAbsent(handler.getStudy(), study ->
+            new RegionReplica<>(study.getName(), handler.getScan(), handler.getRegionMapper(),
+                handler.getReplicaValueMapper(), settings.getReplicaRefreshInterval()));
     }
 
-    private Mono<Object> usSalesJdbc(String region) {
-        return Mono.<Object>fromCallable(() ->
-            usSalesJdbcRepository
-            .findById(region)
-            .map(UsSalesDataDto::getSales)
-            .orElse(null)
-        ).subscribeOn(ioScheduler);
+    public boolean hasPersistedData(Studies study) {
+        return handlers.get(study).hasPersistedData();
     }
 
-    private Mono<Object> usSalesR2Dbc(String region) {
-        // Can not use findById as Binding parameters is not supported yet for Postgres R2DBC
+    /**
+     * @return backend that bounds latency of the study, null for unknown studies
+     */
+    public String backendOf(String study) {
+        Studies known = Studies.byName(study);
+        return known == null ? null : handlers.get(known).getBackend();
+    }
+
+    private <T> Mono<Object> lookup(StudyHandler<T> handler, String region) {
+        switch (handler.getPolicy()) {
+            case SNAPSHOT:
+                return snapshot(handler).lookup(region);
+            case COLLAPSED:
+                if (settings.isCollapseEnabled()) {
+                    return batcher(handler).lookup(region);
+                }
+                return handler.getGet().apply(region).map(handler.getValueMapper());
+            case POINT:
+                return handler.getGet().apply(region).map(handler.getValueMapper());
+            default:
+                return Mono.error(new IllegalArgumentException(
+                    "Study '" + handler.getStudy().getName() + "' has no persisted data"));
+        }
+    }
+
+    /**
+     * Whole-table snapshot of the study regardless of its lookup policy, null
+     * when the study has no persisted data.
+     */
+    public RegionSnapshotCache<?, Object> regionSnapshot(Studies study) {
+        StudyHandler<?> handler = handlers.get(study);
+        return handler.hasPersistedData() ? snapshot(handler) : null;
+    }
 
-        // return usSalesR2dbcRepository
-        //   .findById(region)
-        //   .map(UsSalesDataDto::getSales);
+    @SuppressWarnings("unchecked")
+    private <T> RegionSnapshotCache<T, Object> snapshot(StudyHandler<T> handler) {
+        return (RegionSnapshotCache<T, Object>) snapshots.computeIfAbsent(handler.getStudy(), study ->
+            new RegionSnapshotCache<>(study.getName(), handler.getScan(), handler.getRegionMapper(),
+                handler.getValueMapper(), settings.getSnapshotTtl(), settings.isSnapshotRefreshAhead()));
+    }
 
-        // Used for batched & non-batched mode
-        return usSalesR2dbcRepository
-            .findAll()
-            //.doOnNext(r -> log.debug(" [R2DBC -> App]: {}", r))
-            .filter(data -> region.equals(data.getCode()))
-            .next()
-            .map(UsSalesDataDto::getSales);
+    @SuppressWarnings("unchecked")
+    private <T> RegionBatcher<T, Object> batcher(StudyHandler<T> handler) {
+        return (RegionBatcher<T, Object>) batchers.computeIfAbsent(handler.getStudy(), study ->
+            new RegionBatcher<>(study.getName(), handler.getMultiGet(), handler.getRegionMapper(),
+                handler.getValueMapper(),
+                settings.getCollapseMaxBatchSize(),
+                settings.getCollapseWindow(),
+                settings.getCollapseMaxInFlightBatches()));
     }
 
-    private double randomDoubleValue() {
-        return rnd.nextDouble() * 1000;
+    public List<CircuitBreakerStatusDto> circuitBreakerStatus() {
+        return circuitBreakers.toStatus();
     }
 
-    private static <T> Mono<T> withTiming(Mono<T> publisher, String repoType) {
-        AtomicReference<Instant> startTime = new AtomicReference<>();
-        return publisher
-            .doOnSubscribe(__ -> startTime.set(now()))
-            .doOnError(e -> log.warn("Error: ", e))
-            .doFinally(__ ->
-                log.debug("{} request finished, took: {}",
-                    repoType, between(startTime.get(), now())));
+    private Mono<Object> guarded(Mono<Object> lookup, StudyRequestDto request, String backend) {
+        String key = request.getStudy().getName() + "/" + request.getRegion();
+        return latencyMeters.meter(BACKEND, backend)
+            .time(circuitBreakers.breaker(backend).protect(lookup))
+            .doOnNext(value -> lastValues.put(key, value))
+            .onErrorResume(e -> {
+                Object last = lastValues.get(key);
+                if (last == null) {
+                    return Mono.error(e);
+                }
+                log.debug("[{}] lookup of '{}' failed, serving last value: {}", backend, key, e.toString());
+                return Mono.just(last);
+            });
     }
 }
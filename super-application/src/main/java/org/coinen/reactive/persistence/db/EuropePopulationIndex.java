@@ -0,0 +1,48 @@
+package org.coinen.reactive.persistence.db;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import reactor.core.Disposable;
+
+import java.util.List;
+
+/**
+ * Creates the index on population.code at startup, if missing, and checks
+ * that it is there. Without it lookups by code scan the whole collection.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class EuropePopulationIndex {
+    private static final String CODE = "code";
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    private Disposable creation;
+
+    public void start() {
+        ReactiveIndexOperations indexes = mongoOperations.indexOps(EuropePopulationDto.class);
+        // Default name "code_1", as an index on code created by hand has: the same key under
+        // another name fails the creation
+        creation = indexes.ensureIndex(new Index(CODE, Sort.Direction.ASC))
+            .then(indexes.getIndexInfo().any(index -> index.isIndexForFields(List.of(CODE))))
+            .subscribe(
+                verified -> {
+                    if (verified) {
+                        log.info("Index on population.code is in place");
+                    } else {
+                        log.warn("Index on population.code is missing, lookups by code scan the collection");
+                    }
+                },
+                e -> log.warn("Index on population.code could not be created, lookups by code scan the collection", e));
+    }
+
+    public void dispose() {
+        if (creation != null) {
+            creation.dispose();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.coinen.reactive.persistence.db;
+
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+/**
+ * Study reads of {@link EuropePopulationMongoRepository}, they take precedence
+ * over the derived ones (see {@link EuropePopulationMongoReadsImpl}).
+ */
+public interface EuropePopulationMongoReads {
+
+    Flux<EuropePopulationDto> findAll();
+
+    Flux<EuropePopulationDto> findByCodeIn(Collection<String> codes);
+}
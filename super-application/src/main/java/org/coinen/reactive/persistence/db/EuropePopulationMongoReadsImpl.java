@@ -0,0 +1,57 @@
+package org.coinen.reactive.persistence.db;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+/**
+ * Reads of the population collection that fetch only code and population,
+ * decoded straight from the documents instead of through the mapping layer.
+ *
+ * Lookups by code are a single $in query on the index created by
+ * {@link EuropePopulationIndex}. Scans are read in batches of
+ * {@link MongoReadSettings#getBatchSize()} documents.
+ */
+@RequiredArgsConstructor
+public class EuropePopulationMongoReadsImpl implements EuropePopulationMongoReads {
+    private static final String CODE = "code";
+    private static final String POPULATION = "population";
+    private static final Bson PROJECTION = Projections.fields(
+        Projections.include(CODE, POPULATION),
+        Projections.excludeId());
+
+    private final ReactiveMongoOperations mongoOperations;
+    private final MongoReadSettings settings;
+
+    @Override
+    public Flux<EuropePopulationDto> findAll() {
+        return read(collection().find());
+    }
+
+    @Override
+    public Flux<EuropePopulationDto> findByCodeIn(Collection<String> codes) {
+        return read(collection().find(Filters.in(CODE, codes)));
+    }
+
+    private Flux<EuropePopulationDto> read(FindPublisher<Document> find) {
+        return Flux.from(find.projection(PROJECTION).batchSize(settings.getBatchSize()))
+            .map(EuropePopulationMongoReadsImpl::toDto);
+    }
+
+    private MongoCollection<Document> collection() {
+        return mongoOperations.getCollection(mongoOperations.getCollectionName(EuropePopulationDto.class));
+    }
+
+    // Ids are not fetched, study lookups key by code
+    private static EuropePopulationDto toDto(Document document) {
+        return new EuropePopulationDto(null, document.getString(CODE), document.getString(POPULATION));
+    }
+}
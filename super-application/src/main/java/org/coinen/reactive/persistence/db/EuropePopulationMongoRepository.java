@@ -8,14 +8,19 @@ import org.springframework.lang.NonNull;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 public interface EuropePopulationMongoRepository
-    extends ReactiveMongoRepository<EuropePopulationDto, ObjectId> {
+    extends ReactiveMongoRepository<EuropePopulationDto, ObjectId>, EuropePopulationMongoReads {
 
     @Override
     Flux<EuropePopulationDto> findAll();
 
     Mono<EuropePopulationDto> findByCode(@NonNull String code);
 
+    @Override
+    Flux<EuropePopulationDto> findByCodeIn(@NonNull Collection<String> codes);
+
     @Query("{ 'code' : ?0, $where: 'sleep(?1) || true' }")
     Mono<EuropePopulationDto> findByCodeWithLatency(@NonNull String code, int latency);
 }
@@ -0,0 +1,15 @@
+package org.coinen.reactive.persistence.db;
+
+/**
+ * How persisted data of a study is cached and batched.
+ */
+public enum LookupPolicy {
+    // No persisted data, the external service alone serves the study
+    NONE,
+    // Region-keyed snapshot of the whole table, shared by all lookups until it expires
+    SNAPSHOT,
+    // Concurrent point lookups collapsed into multi-get queries, point lookups when collapsing is disabled
+    COLLAPSED,
+    // One query per lookup
+    POINT
+}
@@ -0,0 +1,22 @@
+package org.coinen.reactive.persistence.db;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class LookupSettings {
+    // Batched mode: region-keyed snapshots of the whole table
+    private final Duration snapshotTtl;
+    private final boolean snapshotRefreshAhead;
+
+    // Point lookups: collapse concurrent lookups into multi-get queries
+    private final boolean collapseEnabled;
+    private final Duration collapseWindow;
+    private final int collapseMaxBatchSize;
+    private final int collapseMaxInFlightBatches;
+
+    // In-process replicas of numeric studies, served ahead of any backend
+    private final boolean replicaEnabled;
+    private final Duration replicaRefreshInterval;
+}
@@ -0,0 +1,119 @@
+package org.coinen.reactive.persistence.db;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionAddedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import com.mongodb.event.ConnectionPoolListenerAdapter;
+import com.mongodb.event.ConnectionPoolWaitQueueEnteredEvent;
+import com.mongodb.event.ConnectionPoolWaitQueueExitedEvent;
+import com.mongodb.event.ConnectionRemovedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Command latency and connection pool usage of the Mongo driver, from its
+ * event listeners.
+ *
+ * The driver reports no wait times of the pool, only when a request enters
+ * and leaves the wait queue: waiting requests are a gauge, waits a counter.
+ */
+public class MongoDriverMetrics {
+    private final MeterRegistry registry;
+    private final Map<String, Timer> commands = new ConcurrentHashMap<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger checkedOut = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter waits;
+
+    private final CommandListener commandListener = new CommandListener() {
+        @Override
+        public void commandStarted(CommandStartedEvent event) { }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            command(event.getCommandName(), "success")
+                .record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void commandFailed(CommandFailedEvent event) {
+            command(event.getCommandName(), "error")
+                .record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        }
+    };
+
+    private final ConnectionPoolListener connectionPoolListener = new ConnectionPoolListenerAdapter() {
+        @Override
+        public void connectionAdded(ConnectionAddedEvent event) {
+            size.incrementAndGet();
+        }
+
+        @Override
+        public void connectionRemoved(ConnectionRemovedEvent event) {
+            size.decrementAndGet();
+        }
+
+        @Override
+        public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+            checkedOut.incrementAndGet();
+        }
+
+        @Override
+        public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+            checkedOut.decrementAndGet();
+        }
+
+        @Override
+        public void waitQueueEntered(ConnectionPoolWaitQueueEnteredEvent event) {
+            waiting.incrementAndGet();
+            waits.increment();
+        }
+
+        @Override
+        public void waitQueueExited(ConnectionPoolWaitQueueExitedEvent event) {
+            waiting.decrementAndGet();
+        }
+    };
+
+    public MongoDriverMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("app.mongo.pool.size", size, AtomicInteger::get)
+            .register(registry);
+        Gauge.builder("app.mongo.pool.checked.out", checkedOut, AtomicInteger::get)
+            .register(registry);
+        Gauge.builder("app.mongo.pool.waiting", waiting, AtomicInteger::get)
+            .description("Requests waiting for a connection")
+            .register(registry);
+        this.waits = Counter.builder("app.mongo.pool.waits")
+            .register(registry);
+    }
+
+    public CommandListener commandListener() {
+        return commandListener;
+    }
+
+    public ConnectionPoolListener connectionPoolListener() {
+        return connectionPoolListener;
+    }
+
+    // Command names are few (find, getMore, insert, ...), so are the timers
+    private Timer command(String name, String outcome) {
+        return commands.computeIfAbsent(name + "/" + outcome, __ -> Timer.builder("app.mongo.commands")
+            .tag("command", name)
+            .tag("outcome", outcome)
+            .register(registry));
+    }
+}
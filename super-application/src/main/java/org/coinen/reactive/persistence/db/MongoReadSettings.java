@@ -0,0 +1,9 @@
+package org.coinen.reactive.persistence.db;
+
+import lombok.Value;
+
+@Value
+public class MongoReadSettings {
+    // Documents per cursor batch, one batch for a whole study collection
+    private final int batchSize;
+}
@@ -0,0 +1,362 @@
+package org.coinen.reactive.persistence.db;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import lombok.extern.slf4j.Slf4j;
+import org.coinen.reactive.persistence.model.R2dbcPoolStatusDto;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection pool in front of an R2DBC {@link ConnectionFactory}.
+ *
+ * Handed out connections return to the pool on {@code close()}, a transaction
+ * left open is rolled back first. Waiting acquirers are served in FIFO order
+ * and fail after the acquire timeout. Idle connections are validated and
+ * evicted in the background, while at least {@code minSize} connections are
+ * kept open.
+ */
+@Slf4j
+public class R2dbcConnectionPool implements ConnectionFactory {
+    private final ConnectionFactory connectionFactory;
+    private final R2dbcPoolSettings settings;
+    private final Disposable evictor;
+
+    // Most recently released connections are handed out first
+    private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Queue<Borrower> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private final AtomicInteger allocated = new AtomicInteger();
+    private final AtomicInteger acquired = new AtomicInteger();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    // Acquire latency of the current interval
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAccumulator maxAcquireNanos = new LongAccumulator(Math::max, 0);
+
+    // Results of the last interval
+    private volatile double acquireLatencyMillis;
+    private volatile double maxAcquireLatencyMillis;
+
+    public R2dbcConnectionPool(ConnectionFactory connectionFactory, R2dbcPoolSettings settings) {
+        this.connectionFactory = connectionFactory;
+        this.settings = settings;
+        this.evictor = Flux.interval(settings.getEvictionInterval())
+            .onBackpressureDrop()
+            .concatMap(__ -> maintain())
+            .subscribe();
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.<Connection>create(sink -> {
+            Borrower borrower = new Borrower(sink);
+            sink.onCancel(borrower::cancel);
+            pendingCount.incrementAndGet();
+            pending.offer(borrower);
+            drain();
+        }).timeout(settings.getAcquireTimeout());
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return connectionFactory.getMetadata();
+    }
+
+    public R2dbcPoolStatusDto toStatus() {
+        return new R2dbcPoolStatusDto(
+            settings.getMaxSize(),
+            allocated.get(),
+            acquired.get(),
+            idle.size(),
+            pendingCount.get(),
+            acquireLatencyMillis,
+            maxAcquireLatencyMillis
+        );
+    }
+
+    public void dispose() {
+        evictor.dispose();
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            discard(connection);
+        }
+    }
+
+    // --- Hand over -----------------------------------------------------------
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            for (;;) {
+                Borrower borrower = pending.peek();
+                if (borrower == null) {
+                    break;
+                }
+                if (borrower.cancelled) {
+                    removePending(borrower);
+                    continue;
+                }
+                PooledConnection connection = idle.pollFirst();
+                if (connection != null) {
+                    removePending(borrower);
+                    borrower.deliver(connection);
+                    continue;
+                }
+                int size = allocated.get();
+                if (size >= settings.getMaxSize()) {
+                    break;
+                }
+                if (allocated.compareAndSet(size, size + 1)) {
+                    removePending(borrower);
+                    open(borrower);
+                }
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    // Removed by identity, a cancelled borrower may leave from the middle of the queue
+    private void removePending(Borrower borrower) {
+        pending.remove(borrower);
+        if (borrower.waiting.compareAndSet(true, false)) {
+            pendingCount.decrementAndGet();
+        }
+    }
+
+    private void open(Borrower borrower) {
+        Mono.from(connectionFactory.create())
+            .subscribe(
+                connection -> borrower.deliver(new PooledConnection(connection)),
+                e -> {
+                    allocated.decrementAndGet();
+                    borrower.sink.error(e);
+                    drain();
+                });
+    }
+
+    private void release(PooledConnection connection) {
+        acquired.decrementAndGet();
+        recycle(connection);
+    }
+
+    // Connections go back to the pool without state left over from the lease
+    private Mono<Void> reset(PooledConnection connection, Lease lease) {
+        if (lease.isolationChanged) {
+            // The SPI can not tell the default isolation level to restore, a new connection has it
+            evict(connection);
+            return Mono.empty();
+        }
+        if (!lease.inTransaction) {
+            release(connection);
+            return Mono.empty();
+        }
+        return Mono.from(connection.connection.rollbackTransaction())
+            .doOnSuccess(__ -> release(connection))
+            .onErrorResume(e -> {
+                log.debug("[R2DBC pool] rollback on release failed, evicting connection", e);
+                evict(connection);
+                return Mono.empty();
+            });
+    }
+
+    private void evict(PooledConnection connection) {
+        acquired.decrementAndGet();
+        discard(connection);
+        drain();
+    }
+
+    private void recycle(PooledConnection connection) {
+        connection.idleSince = System.nanoTime();
+        idle.offerFirst(connection);
+        drain();
+    }
+
+    private void discard(PooledConnection connection) {
+        allocated.decrementAndGet();
+        Mono.from(connection.connection.close())
+            .subscribe(null, e -> log.debug("[R2DBC pool] failed to close connection", e));
+    }
+
+    // --- Background maintenance ----------------------------------------------
+
+    private Mono<Void> maintain() {
+        sampleAcquireLatency();
+
+        // Take out connections unused for a whole interval, so that none is handed out while being validated
+        long now = System.nanoTime();
+        long unusedNanos = settings.getEvictionInterval().toNanos();
+        long maxIdleNanos = settings.getMaxIdleTime().toNanos();
+        List<PooledConnection> candidates = new ArrayList<>();
+        for (PooledConnection connection : idle) {
+            if (now - connection.idleSince > unusedNanos && idle.remove(connection)) {
+                candidates.add(connection);
+            }
+        }
+
+        return Flux.fromIterable(candidates)
+            .concatMap(candidate -> {
+                if (now - candidate.idleSince > maxIdleNanos && allocated.get() > settings.getMinSize()) {
+                    discard(candidate);
+                    return Mono.empty();
+                }
+                return validate(candidate);
+            })
+            .then(Mono.defer(this::warmUp))
+            .onErrorResume(e -> {
+                log.warn("[R2DBC pool] maintenance failed", e);
+                return Mono.empty();
+            });
+    }
+
+    private Mono<Void> validate(PooledConnection connection) {
+        if (settings.getValidationQuery() == null || settings.getValidationQuery().isEmpty()) {
+            recycle(connection);
+            return Mono.empty();
+        }
+        return Flux.from(connection.connection.createStatement(settings.getValidationQuery()).execute())
+            .flatMap(result -> result.map((row, metadata) -> 1))
+            .then()
+            .timeout(settings.getAcquireTimeout())
+            .doOnSuccess(__ -> recycle(connection))
+            .onErrorResume(e -> {
+                log.debug("[R2DBC pool] connection failed validation, evicting", e);
+                discard(connection);
+                return Mono.empty();
+            });
+    }
+
+    private Mono<Void> warmUp() {
+        return Flux.range(0, Math.max(0, settings.getMinSize() - allocated.get()))
+            .filter(__ -> reserve())
+            .concatMap(__ -> Mono.from(connectionFactory.create())
+                .doOnNext(connection -> recycle(new PooledConnection(connection)))
+                .doOnError(e -> allocated.decrementAndGet()))
+            .then();
+    }
+
+    private boolean reserve() {
+        for (;;) {
+            int size = allocated.get();
+            if (size >= settings.getMinSize()) {
+                return false;
+            }
+            if (allocated.compareAndSet(size, size + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void sampleAcquireLatency() {
+        long count = acquireCount.sumThenReset();
+        long nanos = acquireNanos.sumThenReset();
+        acquireLatencyMillis = count == 0 ? 0 : nanos / 1e6 / count;
+        maxAcquireLatencyMillis = maxAcquireNanos.getThenReset() / 1e6;
+    }
+
+    // --- Pooled connections --------------------------------------------------
+
+    private static final class PooledConnection {
+        private final Connection connection;
+        private volatile long idleSince = System.nanoTime();
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    private final class Borrower {
+        private final MonoSink<Connection> sink;
+        private final long start = System.nanoTime();
+        private final AtomicReference<PooledConnection> handedOver = new AtomicReference<>();
+        private final AtomicBoolean waiting = new AtomicBoolean(true);
+        private volatile boolean cancelled;
+
+        Borrower(MonoSink<Connection> sink) {
+            this.sink = sink;
+        }
+
+        void deliver(PooledConnection connection) {
+            long took = System.nanoTime() - start;
+            acquireCount.increment();
+            acquireNanos.add(took);
+            maxAcquireNanos.accumulate(took);
+
+            acquired.incrementAndGet();
+            handedOver.set(connection);
+            sink.success(lease(connection));
+            // The sink drops the value when cancelled in the meantime
+            if (cancelled && handedOver.compareAndSet(connection, null)) {
+                release(connection);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            PooledConnection connection = handedOver.getAndSet(null);
+            if (connection != null) {
+                release(connection);
+            } else {
+                removePending(this);
+            }
+        }
+    }
+
+    // State a lease leaves on its connection, tracked as the calls are made
+    private static final class Lease {
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean inTransaction;
+        private volatile boolean isolationChanged;
+    }
+
+    // Connection view that returns to the pool on close, at most once per lease
+    private Connection lease(PooledConnection connection) {
+        Lease lease = new Lease();
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "close":
+                        return Mono.defer(() -> lease.released.compareAndSet(false, true) ?
+                            reset(connection, lease) :
+                            Mono.<Void>empty());
+                    case "beginTransaction":
+                        lease.inTransaction = true;
+                        break;
+                    case "commitTransaction":
+                    case "rollbackTransaction":
+                        lease.inTransaction = false;
+                        break;
+                    case "setTransactionIsolationLevel":
+                        lease.isolationChanged = true;
+                        break;
+                }
+                try {
+                    return method.invoke(connection.connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+}
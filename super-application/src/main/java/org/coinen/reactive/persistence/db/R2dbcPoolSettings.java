@@ -0,0 +1,15 @@
+package org.coinen.reactive.persistence.db;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class R2dbcPoolSettings {
+    private final int minSize;
+    private final int maxSize;
+    private final Duration acquireTimeout;
+    private final Duration maxIdleTime;
+    private final Duration evictionInterval;
+    private final String validationQuery;
+}
@@ -0,0 +1,97 @@
+package org.coinen.reactive.persistence.db;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.UnicastProcessor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent region lookups of one study into multi-get queries.
+ *
+ * Lookups are collected for up to {@code window} or {@code maxBatchSize} regions,
+ * whichever comes first, then resolved with a single query and handed back to
+ * every waiting subscriber. Regions missing from the result complete empty.
+ */
+@Slf4j
+public class RegionBatcher<T, V> {
+    private final String name;
+    private final Function<Collection<String>, Flux<T>> multiGet;
+    private final Function<T, String> regionMapper;
+    private final Function<T, V> valueMapper;
+
+    private final FluxSink<Lookup<V>> lookups;
+
+    public RegionBatcher(
+        String name,
+        Function<Collection<String>, Flux<T>> multiGet,
+        Function<T, String> regionMapper,
+        Function<T, V> valueMapper,
+        int maxBatchSize,
+        Duration window,
+        int maxInFlightBatches
+    ) {
+        this.name = name;
+        this.multiGet = multiGet;
+        this.regionMapper = regionMapper;
+        this.valueMapper = valueMapper;
+
+        UnicastProcessor<Lookup<V>> queue = UnicastProcessor.create();
+        this.lookups = queue.sink();
+
+        queue
+            .bufferTimeout(maxBatchSize, window)
+            // Batches must not be dropped when all in-flight slots are busy
+            .onBackpressureBuffer()
+            .flatMap(this::execute, maxInFlightBatches)
+            // Failed batches resume empty, an error here would leave every later lookup waiting
+            .subscribe(null, e -> log.error("[{} batch] lookups stopped", name, e));
+    }
+
+    public Mono<V> lookup(String region) {
+        return Mono.create(sink -> lookups.next(new Lookup<>(region, sink)));
+    }
+
+    private Mono<Void> execute(List<Lookup<V>> batch) {
+        Map<String, List<MonoSink<V>>> waiting = new HashMap<>();
+        for (Lookup<V> lookup : batch) {
+            waiting.computeIfAbsent(lookup.region, __ -> new ArrayList<>(1)).add(lookup.sink);
+        }
+        log.debug("[{} batch] {} lookups collapsed into {} regions", name, batch.size(), waiting.size());
+
+        // Deferred, so a query that throws fails its batch only
+        return Flux.defer(() -> multiGet.apply(new ArrayList<>(waiting.keySet())))
+            .doOnNext(row -> {
+                List<MonoSink<V>> sinks = waiting.remove(regionMapper.apply(row));
+                if (sinks != null) {
+                    V value = valueMapper.apply(row);
+                    sinks.forEach(sink -> sink.success(value));
+                }
+            })
+            .doOnComplete(() ->
+                waiting.values().forEach(sinks -> sinks.forEach(sink -> sink.success())))
+            .doOnError(e ->
+                waiting.values().forEach(sinks -> sinks.forEach(sink -> sink.error(e))))
+            .onErrorResume(e -> Mono.empty())
+            .then();
+    }
+
+    private static final class Lookup<V> {
+        private final String region;
+        private final MonoSink<V> sink;
+
+        Lookup(String region, MonoSink<V> sink) {
+            this.region = region;
+            this.sink = sink;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.coinen.reactive.persistence.db;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * In-process read replica of a numeric study table.
+ *
+ * Regions are interned to int ids through an open addressing index, values sit
+ * in a primitive column. Every refresh builds a new immutable {@link Table} and
+ * swaps it in atomically, so reads never lock and never allocate. Ids are only
+ * valid for the table they came from.
+ */
+@Slf4j
+public class RegionReplica<T> {
+    private final String name;
+    private final Supplier<Flux<T>> scan;
+    private final Function<T, String> regionMapper;
+    private final ToDoubleFunction<T> valueMapper;
+    private final Duration refreshInterval;
+
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicBoolean loading = new AtomicBoolean();
+    private volatile Table table;
+    private volatile Disposable refresher = Disposables.disposed();
+
+    public RegionReplica(
+        String name,
+        Supplier<Flux<T>> scan,
+        Function<T, String> regionMapper,
+        ToDoubleFunction<T> valueMapper,
+        Duration refreshInterval
+    ) {
+        this.name = name;
+        this.scan = scan;
+        this.regionMapper = regionMapper;
+        this.valueMapper = valueMapper;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * @return current table, null until the first load completes
+     */
+    public Table table() {
+        return table;
+    }
+
+    /**
+     * Reloads the table periodically, the first load is expected from {@link #refresh()}.
+     */
+    public void start() {
+        refresher = Flux.interval(refreshInterval, refreshInterval)
+            .onBackpressureDrop()
+            .concatMap(__ -> refresh()
+                .onErrorResume(e -> {
+                    // The current table is kept until a load succeeds
+                    log.warn("[{} replica] refresh failed", name, e);
+                    return Mono.empty();
+                }))
+            .subscribe();
+    }
+
+    /**
+     * Loads the whole table and swaps it in, completes empty when a load is
+     * already running.
+     */
+    public Mono<Table> refresh() {
+        return Mono.defer(() -> {
+            if (!loading.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            long start = System.nanoTime();
+            return scan.get()
+                .collectList()
+                .map(rows -> Table.of(rows, regionMapper, valueMapper, versions.incrementAndGet()))
+                .doOnNext(loaded -> {
+                    table = loaded;
+                    log.debug("[{} replica] loaded version {} with {} regions in {} ms",
+                        name, loaded.version(), loaded.size(), (System.nanoTime() - start) / 1_000_000);
+                })
+                .doFinally(__ -> loading.set(false));
+        });
+    }
+
+    public void dispose() {
+        refresher.dispose();
+    }
+
+    /**
+     * Immutable version of the replica: region codes, values and the index
+     * from region to id.
+     */
+    public static final class Table {
+        private final long version;
+        private final String[] regions;
+        private final double[] values;
+        // Open addressing over region hashes, slots hold id + 1, 0 is free
+        private final int[] slots;
+        private final int mask;
+
+        private Table(long version, String[] regions, double[] values, int[] slots) {
+            this.version = version;
+            this.regions = regions;
+            this.values = values;
+            this.slots = slots;
+            this.mask = slots.length - 1;
+        }
+
+        static <T> Table of(List<T> rows, Function<T, String> regionMapper, ToDoubleFunction<T> valueMapper, long version) {
+            // Power of two, at most half full
+            int capacity = Integer.highestOneBit(Math.max(2, rows.size()) * 2 - 1) << 1;
+            String[] regions = new String[rows.size()];
+            double[] values = new double[rows.size()];
+            int[] slots = new int[capacity];
+            int mask = capacity - 1;
+
+            int size = 0;
+            for (T row : rows) {
+                String region = regionMapper.apply(row).intern();
+                int slot = spread(region.hashCode()) & mask;
+                while (slots[slot] != 0 && !regions[slots[slot] - 1].equals(region)) {
+                    slot = (slot + 1) & mask;
+                }
+                // Last row of a region wins, as with a map
+                int id = slots[slot] != 0 ? slots[slot] - 1 : size++;
+                regions[id] = region;
+                values[id] = valueMapper.applyAsDouble(row);
+                slots[slot] = id + 1;
+            }
+            if (size < rows.size()) {
+                regions = Arrays.copyOf(regions, size);
+                values = Arrays.copyOf(values, size);
+            }
+            return new Table(version, regions, values, slots);
+        }
+
+        /**
+         * @return id of the region in this table, -1 when it is unknown
+         */
+        public int id(String region) {
+            int slot = spread(region.hashCode()) & mask;
+            for (;;) {
+                int entry = slots[slot];
+                if (entry == 0) {
+                    return -1;
+                }
+                String candidate = regions[entry - 1];
+                if (candidate == region || candidate.equals(region)) {
+                    return entry - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        public double value(int id) {
+            return values[id];
+        }
+
+        public String region(int id) {
+            return regions[id];
+        }
+
+        public int size() {
+            return regions.length;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
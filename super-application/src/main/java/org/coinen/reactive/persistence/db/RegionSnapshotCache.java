@@ -0,0 +1,137 @@
+package org.coinen.reactive.persistence.db;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Region-keyed snapshot of a whole study table.
+ *
+ * All concurrent lookups share one in-flight scan, so the table is read at most
+ * once per refresh interval. With refresh-ahead enabled a stale snapshot is still
+ * served while the new one is loaded in the background.
+ */
+@Slf4j
+public class RegionSnapshotCache<T, V> {
+    private final String name;
+    private final Supplier<Flux<T>> scan;
+    private final Function<T, String> regionMapper;
+    private final Function<T, V> valueMapper;
+    private final long ttlNanos;
+    private final boolean refreshAhead;
+
+    private final AtomicReference<MonoProcessor<Snapshot<V>>> inFlight = new AtomicReference<>();
+    private volatile Snapshot<V> snapshot;
+
+    public RegionSnapshotCache(
+        String name,
+        Supplier<Flux<T>> scan,
+        Function<T, String> regionMapper,
+        Function<T, V> valueMapper,
+        Duration ttl,
+        boolean refreshAhead
+    ) {
+        this.name = name;
+        this.scan = scan;
+        this.regionMapper = regionMapper;
+        this.valueMapper = valueMapper;
+        this.ttlNanos = ttl.toNanos();
+        this.refreshAhead = refreshAhead;
+    }
+
+    public Mono<V> lookup(String region) {
+        Snapshot<V> current = usableSnapshot();
+        if (current != null) {
+            return Mono.justOrEmpty(current.get(region));
+        }
+        return Mono.defer(this::refresh)
+            .flatMap(loaded -> Mono.justOrEmpty(loaded.get(region)));
+    }
+
+    /**
+     * @return all regions of the snapshot, the map must not be modified
+     */
+    public Mono<Map<String, V>> values() {
+        Snapshot<V> current = usableSnapshot();
+        if (current != null) {
+            return Mono.just(current.values);
+        }
+        return Mono.defer(this::refresh)
+            .map(loaded -> loaded.values);
+    }
+
+    public int size() {
+        Snapshot<V> current = snapshot;
+        return current == null ? 0 : current.values.size();
+    }
+
+    // Snapshot that may be served right away, null when a scan has to be awaited
+    private Snapshot<V> usableSnapshot() {
+        Snapshot<V> current = snapshot;
+        if (current != null) {
+            if (current.isFresh(ttlNanos)) {
+                return current;
+            }
+            if (refreshAhead) {
+                refresh().subscribe(__ -> { }, e -> log.warn("[{} snapshot] background refresh failed", name, e));
+                return current;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Starts a new scan unless one is already running, in which case the running
+     * one is shared with the caller.
+     */
+    Mono<Snapshot<V>> refresh() {
+        for (;;) {
+            MonoProcessor<Snapshot<V>> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+            MonoProcessor<Snapshot<V>> processor = MonoProcessor.create();
+            if (inFlight.compareAndSet(null, processor)) {
+                long start = System.nanoTime();
+                scan.get()
+                    .collectMap(regionMapper, valueMapper)
+                    .map(values -> new Snapshot<>(Collections.unmodifiableMap(values), System.nanoTime()))
+                    .doOnSuccess(loaded -> {
+                        snapshot = loaded;
+                        inFlight.set(null);
+                        log.debug("[{} snapshot] loaded {} regions in {} ms",
+                            name, loaded.values.size(), (System.nanoTime() - start) / 1_000_000);
+                    })
+                    .doOnError(e -> inFlight.set(null))
+                    .subscribe(processor);
+                return processor;
+            }
+        }
+    }
+
+    static final class Snapshot<V> {
+        private final Map<String, V> values;
+        private final long loadedAt;
+
+        Snapshot(Map<String, V> values, long loadedAt) {
+            this.values = values;
+            this.loadedAt = loadedAt;
+        }
+
+        V get(String region) {
+            return values.get(region);
+        }
+
+        boolean isFresh(long ttlNanos) {
+            return System.nanoTime() - loadedAt < ttlNanos;
+        }
+    }
+}
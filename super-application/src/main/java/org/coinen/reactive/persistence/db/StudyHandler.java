@@ -0,0 +1,48 @@
+package org.coinen.reactive.persistence.db;
+
+import lombok.Value;
+import org.coinen.reactive.persistence.Studies;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Where persisted data of one study lives and how it is read.
+ *
+ * Queries are only used by the policies that need them: the whole table scan
+ * by snapshots (and live feeds), the multi-get by collapsed lookups and the
+ * point query by point lookups. Numeric studies may also be served from an
+ * in-process {@link RegionReplica} warmed by the scan.
+ */
+@Value
+public class StudyHandler<T> {
+    private final Studies study;
+    // Name of the backend for metrics, circuit breakers and concurrency limits
+    private final String backend;
+    private final LookupPolicy policy;
+
+    private final Supplier<Flux<T>> scan;
+    private final Function<Collection<String>, Flux<T>> multiGet;
+    private final Function<String, Mono<T>> get;
+
+    private final Function<T, String> regionMapper;
+    private final Function<T, Object> valueMapper;
+    // Primitive value for the replica, null when values are not numeric
+    private final ToDoubleFunction<T> replicaValueMapper;
+
+    public static StudyHandler<Object> external(Studies study) {
+        return new StudyHandler<>(study, "external", LookupPolicy.NONE, null, null, null, null, null, null);
+    }
+
+    public boolean hasPersistedData() {
+        return policy != LookupPolicy.NONE;
+    }
+
+    public boolean isReplicable() {
+        return hasPersistedData() && replicaValueMapper != null;
+    }
+}
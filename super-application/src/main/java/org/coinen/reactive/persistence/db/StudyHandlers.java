@@ -0,0 +1,124 @@
+package org.coinen.reactive.persistence.db;
+
+import org.coinen.reactive.persistence.Studies;
+import org.coinen.reactive.persistence.db.jdbc.UsSalesJdbcRepository;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.coinen.reactive.persistence.utils.ReactiveDiagnostics.blocking;
+
+/**
+ * Handlers of all studies, looked up by {@link Studies}.
+ */
+public class StudyHandlers {
+    // Simulated server-side latency of Mongo point lookups
+    private static final int MONGO_POINT_LATENCY_MILLIS = 2500;
+
+    private final Map<Studies, StudyHandler<?>> handlers = new EnumMap<>(Studies.class);
+
+    public StudyHandlers(Collection<StudyHandler<?>> handlers) {
+        handlers.forEach(handler -> this.handlers.put(handler.getStudy(), handler));
+        for (Studies study : Studies.values()) {
+            if (!this.handlers.containsKey(study)) {
+                throw new IllegalArgumentException("No handler for study '" + study.getName() + "'");
+            }
+        }
+    }
+
+    public StudyHandler<?> get(Studies study) {
+        return handlers.get(study);
+    }
+
+    public Collection<StudyHandler<?>> all() {
+        return handlers.values();
+    }
+
+    public static StudyHandlers create(
+        Scheduler ioScheduler,
+        WorldGdpCassandraRepository worldGdpCassandraRepository,
+        EuropePopulationMongoRepository europePopulationMongoRepository,
+        WorldPopDensityReads worldPopDensityReads,
+        UsSalesJdbcRepository usSalesJdbcRepository,
+        UsSalesR2dbcRepository usSalesR2dbcRepository
+    ) {
+        StudyHandler<UsSalesDataDto> usSalesR2dbc = new StudyHandler<>(
+            Studies.US_DISTRICS_R2DBC,
+            "r2dbc",
+            LookupPolicy.SNAPSHOT,
+            usSalesR2dbcRepository::findAll,
+            null,
+            usSalesR2dbcRepository::findById,
+            UsSalesDataDto::getCode,
+            UsSalesDataDto::getSales,
+            UsSalesDataDto::getSales);
+
+        return new StudyHandlers(List.of(
+            StudyHandler.external(Studies.UKRAINE_WEATHR_4_SYNC),
+            StudyHandler.external(Studies.UKRAINE_WEATHR_27_ASYNC),
+            new StudyHandler<WorldGdpDto>(
+                Studies.WORLD_GDP,
+                "cassandra",
+                LookupPolicy.SNAPSHOT,
+                worldGdpCassandraRepository::findAll,
+                worldGdpCassandraRepository::findByCountryCodeIn,
+                worldGdpCassandraRepository::findById,
+                WorldGdpDto::getCountry_code,
+                WorldGdpDto::getGdp,
+                WorldGdpDto::getGdp),
+            new StudyHandler<EuropePopulationDto>(
+                Studies.EUROPE_POP,
+                "mongo",
+                LookupPolicy.SNAPSHOT,
+                europePopulationMongoRepository::findAll,
+                europePopulationMongoRepository::findByCodeIn,
+                region -> europePopulationMongoRepository.findByCodeWithLatency(region, MONGO_POINT_LATENCY_MILLIS),
+                EuropePopulationDto::getCode,
+                EuropePopulationDto::getPopulation,
+                // Populations are labels like "36M"
+                null),
+            new StudyHandler<WorldPopDensityDto>(
+                Studies.WORLD_POP_DENSITY,
+                "couchbase",
+                LookupPolicy.SNAPSHOT,
+                worldPopDensityReads::findByDensityLessThan10000,
+                worldPopDensityReads::findAllById,
+                worldPopDensityReads::findById,
+                WorldPopDensityDto::getId,
+                WorldPopDensityDto::getDensity,
+                WorldPopDensityDto::getDensity),
+            new StudyHandler<UsSalesDataDto>(
+                Studies.US_SALES_JDBC,
+                "jdbc",
+                LookupPolicy.COLLAPSED,
+                () -> Mono.fromCallable(blocking("jdbc", usSalesJdbcRepository::findAll))
+                    .flatMapIterable(Function.identity())
+                    .subscribeOn(ioScheduler),
+                codes -> Mono.fromCallable(blocking("jdbc", () -> usSalesJdbcRepository.findByCodeIn(codes)))
+                    .flatMapIterable(Function.identity())
+                    .subscribeOn(ioScheduler),
+                region -> Mono.fromCallable(blocking("jdbc", () -> usSalesJdbcRepository.findById(region).orElse(null)))
+                    .subscribeOn(ioScheduler),
+                UsSalesDataDto::getCode,
+                UsSalesDataDto::getSales,
+                UsSalesDataDto::getSales),
+            usSalesR2dbc,
+            // Same data as the R2DBC study, requests are handled by blocking threads
+            new StudyHandler<UsSalesDataDto>(
+                Studies.US_DISTRICS_BLOCKING,
+                usSalesR2dbc.getBackend(),
+                usSalesR2dbc.getPolicy(),
+                usSalesR2dbc.getScan(),
+                usSalesR2dbc.getMultiGet(),
+                usSalesR2dbc.getGet(),
+                usSalesR2dbc.getRegionMapper(),
+                usSalesR2dbc.getValueMapper(),
+                usSalesR2dbc.getReplicaValueMapper())
+        ));
+    }
+}
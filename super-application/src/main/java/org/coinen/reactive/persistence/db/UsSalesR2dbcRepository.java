@@ -3,7 +3,6 @@ package org.coinen.reactive.persistence.db;
 
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.data.r2dbc.repository.query.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -14,8 +13,9 @@ public interface UsSalesR2dbcRepository extends R2dbcRepository<UsSalesDataDto,
     @Query("select * from us_sales_by_districts, pg_sleep(2)")
     Flux<UsSalesDataDto> findAll();
 
-    // Binding parameters are not supported yet by r2dbc-postgres
+    // Spring Data R2DBC milestones bind by index only, so the query has to use
+    // Postgres native bind markers instead of named parameters
     @Override
-    @Query("select * from us_sales_by_districts, pg_sleep(2) where code=:code")
-    Mono<UsSalesDataDto> findById(@Param("code") @NonNull String code);
+    @Query("select * from us_sales_by_districts, pg_sleep(2) where code = $1")
+    Mono<UsSalesDataDto> findById(@NonNull String code);
 }
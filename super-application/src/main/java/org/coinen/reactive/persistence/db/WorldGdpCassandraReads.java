@@ -0,0 +1,19 @@
+package org.coinen.reactive.persistence.db;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Study reads of {@link WorldGdpCassandraRepository}, they take precedence over
+ * the derived ones (see {@link WorldGdpCassandraReadsImpl}).
+ */
+public interface WorldGdpCassandraReads {
+
+    Flux<WorldGdpDto> findAll();
+
+    Mono<WorldGdpDto> findById(String countryCode);
+
+    Flux<WorldGdpDto> findByCountryCodeIn(Collection<String> countryCodes);
+}
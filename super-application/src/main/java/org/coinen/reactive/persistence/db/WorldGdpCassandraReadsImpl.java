@@ -0,0 +1,81 @@
+package org.coinen.reactive.persistence.db;
+
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Statement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.cassandra.ReactiveResultSet;
+import org.springframework.data.cassandra.ReactiveSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads of world_gdp on prepared statements, prepared once per session.
+ *
+ * Bound statements carry their partition key, so the driver's token-aware
+ * policy sends a point read straight to a replica of the partition. Fetch size
+ * and consistency are set per query: a snapshot scan of the ~200 countries is
+ * one page instead of a page per spring.data.cassandra.fetch-size rows.
+ */
+@RequiredArgsConstructor
+public class WorldGdpCassandraReadsImpl implements WorldGdpCassandraReads {
+    private static final String SELECT_ALL = "SELECT country_code, gdp FROM world_gdp";
+    private static final String SELECT_ONE = SELECT_ALL + " WHERE country_code = ?";
+    private static final String SELECT_IN = SELECT_ALL + " WHERE country_code IN ?";
+
+    private final ReactiveSession session;
+    private final CassandraReadSettings settings;
+    private final Map<String, Mono<PreparedStatement>> statements = new ConcurrentHashMap<>();
+
+    @Override
+    public Flux<WorldGdpDto> findAll() {
+        return execute(SELECT_ALL)
+            .flatMapMany(ReactiveResultSet::rows)
+            .map(WorldGdpCassandraReadsImpl::toDto);
+    }
+
+    @Override
+    public Mono<WorldGdpDto> findById(String countryCode) {
+        return execute(SELECT_ONE, countryCode)
+            .flatMap(resultSet -> resultSet.availableRows().next())
+            .map(WorldGdpCassandraReadsImpl::toDto);
+    }
+
+    // Point reads go to one replica each, an IN query goes to a coordinator
+    // that reads from the replicas of every partition
+    @Override
+    public Flux<WorldGdpDto> findByCountryCodeIn(Collection<String> countryCodes) {
+        if (settings.isAsyncMultiGet()) {
+            return Flux.fromIterable(countryCodes)
+                .flatMap(this::findById, settings.getMaxConcurrentReads());
+        }
+        return execute(SELECT_IN, new ArrayList<>(countryCodes))
+            .flatMapMany(ReactiveResultSet::rows)
+            .map(WorldGdpCassandraReadsImpl::toDto);
+    }
+
+    private Mono<ReactiveResultSet> execute(String cql, Object... values) {
+        return prepared(cql)
+            .map(statement -> statement.bind(values)
+                .setFetchSize(settings.getScanFetchSize())
+                .setConsistencyLevel(settings.getConsistency())
+                .setIdempotent(true))
+            .flatMap(session::execute);
+    }
+
+    private Mono<PreparedStatement> prepared(String cql) {
+        return statements.computeIfAbsent(cql, __ -> session.prepare(cql)
+            // Prepared again by the next read
+            .doOnError(e -> statements.remove(cql))
+            .cache());
+    }
+
+    private static WorldGdpDto toDto(Row row) {
+        return new WorldGdpDto(row.getString(0), row.getFloat(1));
+    }
+}
@@ -6,12 +6,17 @@ import org.springframework.lang.NonNull;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 public interface WorldGdpCassandraRepository
-    extends ReactiveCassandraRepository<WorldGdpDto, String> {
+    extends ReactiveCassandraRepository<WorldGdpDto, String>, WorldGdpCassandraReads {
 
     @Override
     Flux<WorldGdpDto> findAll();
 
     @Override
     Mono<WorldGdpDto> findById(@NonNull String country_code);
+
+    @Override
+    Flux<WorldGdpDto> findByCountryCodeIn(@NonNull Collection<String> countryCodes);
 }
@@ -8,7 +8,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface WorldPopDensityCouchbaseRepository
-    extends ReactiveCouchbaseRepository<WorldPopDensityDto, String> {
+    extends ReactiveCouchbaseRepository<WorldPopDensityDto, String>, WorldPopDensityReads {
 
     // Does not work without view "/all"
     @Override
@@ -17,6 +17,7 @@ public interface WorldPopDensityCouchbaseRepository
     @Override
     Mono<WorldPopDensityDto> findById(@NonNull String id);
 
+    @Override
     @Query("SELECT META(`bucket1`).id AS _ID, META(`bucket1`).cas AS _CAS, `bucket1`.*" +
            " FROM bucket1 " +
            " WHERE density < 1000")
@@ -0,0 +1,17 @@
+package org.coinen.reactive.persistence.db;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Study reads of {@link WorldPopDensityCouchbaseRepository}, all the study
+ * handler needs. The "local" profile serves them without a Couchbase behind.
+ */
+public interface WorldPopDensityReads {
+
+    Flux<WorldPopDensityDto> findByDensityLessThan10000();
+
+    Flux<WorldPopDensityDto> findAllById(Iterable<String> ids);
+
+    Mono<WorldPopDensityDto> findById(String id);
+}
@@ -7,10 +7,15 @@ import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UsSalesJdbcRepository extends CrudRepository<UsSalesDataDto, String> {
 
     @Query("select * from us_sales_by_districts, pg_sleep(2) where code=:code")
     Optional<UsSalesDataDto> findById(@Param ("code") @NonNull String code);
+
+    @Query("select * from us_sales_by_districts, pg_sleep(2) where code in (:codes)")
+    List<UsSalesDataDto> findByCodeIn(@Param ("codes") @NonNull Collection<String> codes);
 }
@@ -0,0 +1,202 @@
+package org.coinen.reactive.persistence.db.local;
+
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.coinen.reactive.persistence.db.UsSalesDataDto;
+import org.coinen.reactive.persistence.db.UsSalesR2dbcRepository;
+import org.reactivestreams.Publisher;
+import org.springframework.data.r2dbc.function.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * R2DBC stand-in over an in-memory H2 database, so that queries still go
+ * through the R2DBC connection pool. The latency replaces pg_sleep(2) of the
+ * Postgres queries, it delays each query before it is sent.
+ */
+public class H2UsSalesR2dbcRepository implements UsSalesR2dbcRepository {
+    private static final String COLUMNS = "select code, sales from us_sales_by_districts";
+
+    private final DatabaseClient client;
+    private final LatencyDistribution latency;
+
+    public H2UsSalesR2dbcRepository(DatabaseClient client, LatencyDistribution latency) {
+        this.client = client;
+        this.latency = latency;
+    }
+
+    // Creates the table if needed and upserts the rows, without latency
+    void load(Collection<UsSalesDataDto> rows) {
+        client.execute()
+            .sql("create table if not exists us_sales_by_districts (code varchar(32) not null primary key, sales double)")
+            .fetch()
+            .rowsUpdated()
+            .thenMany(Flux.fromIterable(rows))
+            .concatMap(this::merge)
+            .blockLast();
+    }
+
+    @Override
+    public <S extends UsSalesDataDto> Mono<S> save(S entity) {
+        return delayed(merge(entity)).thenReturn(entity);
+    }
+
+    @Override
+    public <S extends UsSalesDataDto> Flux<S> saveAll(Iterable<S> entities) {
+        return delayed(Flux.fromIterable(entities)
+            .concatMap(entity -> merge(entity).thenReturn(entity)));
+    }
+
+    @Override
+    public <S extends UsSalesDataDto> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream)
+            .collectList()
+            .flatMapMany(this::saveAll);
+    }
+
+    @Override
+    public Mono<UsSalesDataDto> findById(String code) {
+        return delayed(client.execute()
+            .sql(COLUMNS + " where code = $1")
+            .bind(0, code)
+            .map(H2UsSalesR2dbcRepository::toUsSales)
+            .one());
+    }
+
+    @Override
+    public Mono<UsSalesDataDto> findById(Publisher<String> code) {
+        return Mono.from(code).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String code) {
+        return findById(code).hasElement();
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<String> code) {
+        return Mono.from(code).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<UsSalesDataDto> findAll() {
+        return delayed(client.execute()
+            .sql(COLUMNS)
+            .map(H2UsSalesR2dbcRepository::toUsSales)
+            .all());
+    }
+
+    @Override
+    public Flux<UsSalesDataDto> findAllById(Iterable<String> codes) {
+        List<String> wanted = new ArrayList<>();
+        codes.forEach(wanted::add);
+        if (wanted.isEmpty()) {
+            return Flux.empty();
+        }
+        DatabaseClient.GenericExecuteSpec select = client.execute()
+            .sql(COLUMNS + " where code in (" + bindMarkers(wanted.size()) + ")");
+        for (int i = 0; i < wanted.size(); i++) {
+            select = select.bind(i, wanted.get(i));
+        }
+        return delayed(select.map(H2UsSalesR2dbcRepository::toUsSales).all());
+    }
+
+    @Override
+    public Flux<UsSalesDataDto> findAllById(Publisher<String> codeStream) {
+        return Flux.from(codeStream)
+            .collectList()
+            .flatMapMany(this::findAllById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return delayed(client.execute()
+            .sql("select count(*) from us_sales_by_districts")
+            .map((row, metadata) -> row.get(0, Long.class))
+            .one());
+    }
+
+    @Override
+    public Mono<Void> deleteById(String code) {
+        return delayed(client.execute()
+            .sql("delete from us_sales_by_districts where code = $1")
+            .bind(0, code)
+            .fetch()
+            .rowsUpdated())
+            .then();
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<String> code) {
+        return Mono.from(code).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(UsSalesDataDto entity) {
+        return deleteById(entity.getCode());
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends UsSalesDataDto> entities) {
+        return delayed(Flux.fromIterable(entities)
+            .concatMap(entity -> client.execute()
+                .sql("delete from us_sales_by_districts where code = $1")
+                .bind(0, entity.getCode())
+                .fetch()
+                .rowsUpdated()))
+            .then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends UsSalesDataDto> entityStream) {
+        return Flux.from(entityStream)
+            .collectList()
+            .flatMap(entities -> deleteAll(entities));
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return delayed(client.execute()
+            .sql("delete from us_sales_by_districts")
+            .fetch()
+            .rowsUpdated())
+            .then();
+    }
+
+    private Mono<Integer> merge(UsSalesDataDto row) {
+        return client.execute()
+            .sql("merge into us_sales_by_districts (code, sales) values ($1, $2)")
+            .bind(0, row.getCode())
+            .bind(1, row.getSales())
+            .fetch()
+            .rowsUpdated();
+    }
+
+    private static UsSalesDataDto toUsSales(Row row, RowMetadata metadata) {
+        // By index, H2 reports column names in upper case
+        return new UsSalesDataDto(row.get(0, String.class), row.get(1, Double.class));
+    }
+
+    private static String bindMarkers(int count) {
+        return IntStream.rangeClosed(1, count)
+            .mapToObj(i -> "$" + i)
+            .collect(Collectors.joining(", "));
+    }
+
+    private <R> Flux<R> delayed(Flux<R> query) {
+        Duration delay = latency.next();
+        return delay.isZero() ? query : query.delaySubscription(delay);
+    }
+
+    private <R> Mono<R> delayed(Mono<R> query) {
+        Duration delay = latency.next();
+        return delay.isZero() ? query : query.delaySubscription(delay);
+    }
+}
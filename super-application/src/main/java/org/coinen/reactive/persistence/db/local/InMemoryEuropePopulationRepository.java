@@ -0,0 +1,81 @@
+package org.coinen.reactive.persistence.db.local;
+
+import org.bson.types.ObjectId;
+import org.coinen.reactive.persistence.db.EuropePopulationDto;
+import org.coinen.reactive.persistence.db.EuropePopulationMongoRepository;
+import org.reactivestreams.Publisher;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Keyed by code like the index on code, lookups by {@link ObjectId} and
+ * queries by example scan.
+ */
+public class InMemoryEuropePopulationRepository
+    extends InMemoryReactiveRepository<EuropePopulationDto, ObjectId>
+    implements EuropePopulationMongoRepository {
+
+    public InMemoryEuropePopulationRepository(Collection<EuropePopulationDto> rows, LatencyDistribution latency) {
+        super(rows, EuropePopulationDto::getCode, EuropePopulationDto::getId, latency);
+    }
+
+    @Override
+    public Mono<EuropePopulationDto> findByCode(String code) {
+        return table.one(() -> table.get(code));
+    }
+
+    @Override
+    public Flux<EuropePopulationDto> findByCodeIn(Collection<String> codes) {
+        return table.many(() -> table.select(codes));
+    }
+
+    // The latency of the stand-in replaces the server side sleep
+    @Override
+    public Mono<EuropePopulationDto> findByCodeWithLatency(String code, int latency) {
+        return findByCode(code);
+    }
+
+    @Override
+    public <S extends EuropePopulationDto> Mono<S> insert(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends EuropePopulationDto> Flux<S> insert(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public <S extends EuropePopulationDto> Flux<S> insert(Publisher<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public <S extends EuropePopulationDto> Mono<S> findOne(Example<S> example) {
+        return findAll(example)
+            .collectList()
+            .flatMap(rows -> rows.size() > 1 ?
+                Mono.error(new IncorrectResultSizeDataAccessException(1, rows.size())) :
+                Mono.justOrEmpty(rows.stream().findFirst()));
+    }
+
+    @Override
+    public <S extends EuropePopulationDto> Flux<S> findAll(Example<S> example) {
+        return findAll(example, Sort.unsorted());
+    }
+
+    @Override
+    public <S extends EuropePopulationDto> Mono<Long> count(Example<S> example) {
+        return findAll(example).count();
+    }
+
+    @Override
+    public <S extends EuropePopulationDto> Mono<Boolean> exists(Example<S> example) {
+        return findAll(example).hasElements();
+    }
+}
@@ -0,0 +1,93 @@
+package org.coinen.reactive.persistence.db.local;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.ExampleMatcherAccessor;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Sorting and query by example over the properties of in-memory rows.
+ */
+final class InMemoryQueries {
+    private InMemoryQueries() { }
+
+    // Rows equal on all sort properties keep their order by key
+    static <T> Comparator<T> comparator(Sort sort) {
+        Comparator<T> comparator = (left, right) -> 0;
+        for (Sort.Order order : sort) {
+            comparator = comparator.thenComparing(
+                new PropertyComparator<>(order.getProperty(), order.isIgnoreCase(), order.isAscending()));
+        }
+        return comparator;
+    }
+
+    /**
+     * Rows of the probe's type matching its properties, null ones are ignored
+     * or have to be null as the matcher says. Nested paths are not supported.
+     */
+    static Predicate<Object> matcher(Example<?> example) {
+        ExampleMatcher matcher = example.getMatcher();
+        ExampleMatcherAccessor accessor = new ExampleMatcherAccessor(matcher);
+        BeanWrapper probe = new BeanWrapperImpl(example.getProbe());
+
+        List<Predicate<BeanWrapper>> conditions = new ArrayList<>();
+        for (PropertyDescriptor property : probe.getPropertyDescriptors()) {
+            String path = property.getName();
+            if (property.getReadMethod() == null || "class".equals(path) || accessor.isIgnoredPath(path)) {
+                continue;
+            }
+            Object expected = probe.getPropertyValue(path);
+            if (expected == null && accessor.getNullHandler() == ExampleMatcher.NullHandler.IGNORE) {
+                continue;
+            }
+            conditions.add(row -> matches(expected, row.getPropertyValue(path), accessor, path));
+        }
+
+        Class<?> type = example.getProbeType();
+        return row -> {
+            if (!type.isInstance(row)) {
+                return false;
+            }
+            BeanWrapper wrapped = new BeanWrapperImpl(row);
+            return conditions.isEmpty() || (matcher.isAllMatching() ?
+                conditions.stream().allMatch(condition -> condition.test(wrapped)) :
+                conditions.stream().anyMatch(condition -> condition.test(wrapped)));
+        };
+    }
+
+    private static boolean matches(Object expected, Object actual, ExampleMatcherAccessor accessor, String path) {
+        if (expected == null || actual == null) {
+            return expected == actual;
+        }
+        if (!(expected instanceof String) || !(actual instanceof String)) {
+            return expected.equals(actual);
+        }
+        boolean ignoreCase = accessor.isIgnoreCaseForPath(path);
+        String value = ignoreCase ? ((String) actual).toLowerCase() : (String) actual;
+        String probe = ignoreCase ? ((String) expected).toLowerCase() : (String) expected;
+        switch (accessor.getStringMatcherForPath(path)) {
+            case STARTING:
+                return value.startsWith(probe);
+            case ENDING:
+                return value.endsWith(probe);
+            case CONTAINING:
+                return value.contains(probe);
+            case REGEX:
+                return Pattern.compile((String) expected, ignoreCase ? Pattern.CASE_INSENSITIVE : 0)
+                    .matcher((String) actual)
+                    .matches();
+            default:
+                return value.equals(probe);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.coinen.reactive.persistence.db.local;
+
+import org.reactivestreams.Publisher;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Reactive CRUD over an {@link InMemoryTable}. Lookups by id scan the table,
+ * stand-ins keyed by their id look them up directly.
+ */
+abstract class InMemoryReactiveRepository<T, ID> implements ReactiveCrudRepository<T, ID> {
+    protected final InMemoryTable<T> table;
+    private final Function<T, ID> idOf;
+
+    InMemoryReactiveRepository(
+        Collection<? extends T> rows,
+        Function<T, String> keyOf,
+        Function<T, ID> idOf,
+        LatencyDistribution latency
+    ) {
+        this.table = new InMemoryTable<>(rows, keyOf, latency);
+        this.idOf = idOf;
+    }
+
+    @Override
+    public <S extends T> Mono<S> save(S entity) {
+        return table.one(() -> table.put(entity));
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Iterable<S> entities) {
+        return table.many(() -> {
+            entities.forEach(table::put);
+            return entities;
+        });
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream)
+            .collectList()
+            .flatMapMany(this::saveAll);
+    }
+
+    @Override
+    public Mono<T> findById(ID id) {
+        return table.many(() -> table.filter(row -> id.equals(idOf.apply(row)))).next();
+    }
+
+    @Override
+    public Mono<T> findById(Publisher<ID> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(ID id) {
+        return findById(id).hasElement();
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<ID> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<T> findAll() {
+        return table.many(table::all);
+    }
+
+    // Of the sorting repositories
+    public Flux<T> findAll(Sort sort) {
+        return table.many(() -> {
+            List<T> rows = table.all();
+            rows.sort(InMemoryQueries.comparator(sort));
+            return rows;
+        });
+    }
+
+    // Of the query by example executors
+    public <S extends T> Flux<S> findAll(Example<S> example, Sort sort) {
+        Class<S> type = example.getProbeType();
+        Predicate<Object> matcher = InMemoryQueries.matcher(example);
+        return table.many(() -> {
+            List<S> rows = new ArrayList<>();
+            table.filter(matcher).forEach(row -> rows.add(type.cast(row)));
+            rows.sort(InMemoryQueries.comparator(sort));
+            return rows;
+        });
+    }
+
+    @Override
+    public Flux<T> findAllById(Iterable<ID> ids) {
+        Set<ID> wanted = new HashSet<>();
+        ids.forEach(wanted::add);
+        return table.many(() -> table.filter(row -> wanted.contains(idOf.apply(row))));
+    }
+
+    @Override
+    public Flux<T> findAllById(Publisher<ID> idStream) {
+        return Flux.from(idStream)
+            .collectList()
+            .flatMapMany(this::findAllById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return table.one(table::size);
+    }
+
+    @Override
+    public Mono<Void> deleteById(ID id) {
+        return table.run(() -> table.removeIf(row -> id.equals(idOf.apply(row))));
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<ID> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(T entity) {
+        return deleteById(idOf.apply(entity));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends T> entities) {
+        Set<ID> ids = new HashSet<>();
+        entities.forEach(entity -> ids.add(idOf.apply(entity)));
+        return table.run(() -> table.removeIf(row -> ids.contains(idOf.apply(row))));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends T> entityStream) {
+        return Flux.from(entityStream)
+            .collectList()
+            .flatMap(entities -> deleteAll(entities));
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return table.run(() -> table.removeIf(row -> true));
+    }
+}
@@ -0,0 +1,114 @@
+package org.coinen.reactive.persistence.db.local;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Rows of a stand-in repository by region, and the latency of every call.
+ *
+ * Queries are delayed before they run, as the database would sleep before
+ * answering. Reactive ones wait without blocking, blocking ones (JDBC) sleep
+ * on the calling thread as a real driver would.
+ */
+final class InMemoryTable<T> {
+    private final Map<String, T> rows = new ConcurrentSkipListMap<>();
+    private final Function<T, String> keyOf;
+    private final LatencyDistribution latency;
+
+    InMemoryTable(Collection<? extends T> rows, Function<T, String> keyOf, LatencyDistribution latency) {
+        this.keyOf = keyOf;
+        this.latency = latency;
+        rows.forEach(this::put);
+    }
+
+    // --- Rows ----------------------------------------------------------------
+
+    List<T> all() {
+        return new ArrayList<>(rows.values());
+    }
+
+    T get(String key) {
+        return rows.get(key);
+    }
+
+    List<T> select(Iterable<String> keys) {
+        List<T> selected = new ArrayList<>();
+        for (String key : keys) {
+            T row = rows.get(key);
+            if (row != null) {
+                selected.add(row);
+            }
+        }
+        return selected;
+    }
+
+    List<T> filter(Predicate<? super T> filter) {
+        List<T> selected = new ArrayList<>();
+        for (T row : rows.values()) {
+            if (filter.test(row)) {
+                selected.add(row);
+            }
+        }
+        return selected;
+    }
+
+    <S extends T> S put(S row) {
+        rows.put(keyOf.apply(row), row);
+        return row;
+    }
+
+    void removeIf(Predicate<? super T> filter) {
+        rows.values().removeIf(filter);
+    }
+
+    long size() {
+        return rows.size();
+    }
+
+    // --- Calls ---------------------------------------------------------------
+
+    <R> Flux<R> many(Supplier<? extends Iterable<R>> query) {
+        return delayed(Flux.defer(() -> Flux.fromIterable(query.get())));
+    }
+
+    // An empty Mono if the query returns null
+    <R> Mono<R> one(Supplier<R> query) {
+        return delayed(Mono.fromSupplier(query));
+    }
+
+    Mono<Void> run(Runnable command) {
+        return delayed(Mono.fromRunnable(command));
+    }
+
+    <R> R blocking(Supplier<R> query) {
+        long delayMillis = latency.next().toMillis();
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return query.get();
+    }
+
+    private <R> Flux<R> delayed(Flux<R> call) {
+        Duration delay = latency.next();
+        return delay.isZero() ? call : call.delaySubscription(delay);
+    }
+
+    private <R> Mono<R> delayed(Mono<R> call) {
+        Duration delay = latency.next();
+        return delay.isZero() ? call : call.delaySubscription(delay);
+    }
+}
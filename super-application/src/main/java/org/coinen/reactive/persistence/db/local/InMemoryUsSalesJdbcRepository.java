@@ -0,0 +1,96 @@
+package org.coinen.reactive.persistence.db.local;
+
+import org.coinen.reactive.persistence.db.UsSalesDataDto;
+import org.coinen.reactive.persistence.db.jdbc.UsSalesJdbcRepository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Blocking stand-in, every call sleeps on the calling thread.
+ */
+public class InMemoryUsSalesJdbcRepository implements UsSalesJdbcRepository {
+    private final InMemoryTable<UsSalesDataDto> table;
+
+    public InMemoryUsSalesJdbcRepository(Collection<UsSalesDataDto> rows, LatencyDistribution latency) {
+        this.table = new InMemoryTable<>(rows, UsSalesDataDto::getCode, latency);
+    }
+
+    @Override
+    public Optional<UsSalesDataDto> findById(String code) {
+        return table.blocking(() -> Optional.ofNullable(table.get(code)));
+    }
+
+    @Override
+    public List<UsSalesDataDto> findByCodeIn(Collection<String> codes) {
+        return table.blocking(() -> table.select(codes));
+    }
+
+    @Override
+    public <S extends UsSalesDataDto> S save(S entity) {
+        return table.blocking(() -> table.put(entity));
+    }
+
+    @Override
+    public <S extends UsSalesDataDto> Iterable<S> saveAll(Iterable<S> entities) {
+        return table.blocking(() -> {
+            entities.forEach(table::put);
+            return entities;
+        });
+    }
+
+    @Override
+    public boolean existsById(String code) {
+        return findById(code).isPresent();
+    }
+
+    @Override
+    public Iterable<UsSalesDataDto> findAll() {
+        return table.blocking(table::all);
+    }
+
+    @Override
+    public Iterable<UsSalesDataDto> findAllById(Iterable<String> codes) {
+        return table.blocking(() -> table.select(codes));
+    }
+
+    @Override
+    public long count() {
+        return table.blocking(table::size);
+    }
+
+    @Override
+    public void deleteById(String code) {
+        deleteCodes(Set.of(code));
+    }
+
+    @Override
+    public void delete(UsSalesDataDto entity) {
+        deleteById(entity.getCode());
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends UsSalesDataDto> entities) {
+        Set<String> codes = new HashSet<>();
+        entities.forEach(entity -> codes.add(entity.getCode()));
+        deleteCodes(codes);
+    }
+
+    @Override
+    public void deleteAll() {
+        table.blocking(() -> {
+            table.removeIf(row -> true);
+            return null;
+        });
+    }
+
+    private void deleteCodes(Set<String> codes) {
+        table.blocking(() -> {
+            table.removeIf(row -> codes.contains(row.getCode()));
+            return null;
+        });
+    }
+}
@@ -0,0 +1,25 @@
+package org.coinen.reactive.persistence.db.local;
+
+import org.coinen.reactive.persistence.db.UsSalesDataDto;
+import org.coinen.reactive.persistence.db.UsSalesR2dbcRepository;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Without a database, for benchmarks and tests. The "local" profile queries H2
+ * instead, see {@link H2UsSalesR2dbcRepository}.
+ */
+public class InMemoryUsSalesR2dbcRepository
+    extends InMemoryReactiveRepository<UsSalesDataDto, String>
+    implements UsSalesR2dbcRepository {
+
+    public InMemoryUsSalesR2dbcRepository(Collection<UsSalesDataDto> rows, LatencyDistribution latency) {
+        super(rows, UsSalesDataDto::getCode, UsSalesDataDto::getCode, latency);
+    }
+
+    @Override
+    public Mono<UsSalesDataDto> findById(String code) {
+        return table.one(() -> table.get(code));
+    }
+}
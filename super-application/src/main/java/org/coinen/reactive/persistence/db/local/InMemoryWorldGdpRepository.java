@@ -0,0 +1,43 @@
+package org.coinen.reactive.persistence.db.local;
+
+import org.coinen.reactive.persistence.db.WorldGdpCassandraRepository;
+import org.coinen.reactive.persistence.db.WorldGdpDto;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public class InMemoryWorldGdpRepository
+    extends InMemoryReactiveRepository<WorldGdpDto, String>
+    implements WorldGdpCassandraRepository {
+
+    public InMemoryWorldGdpRepository(Collection<WorldGdpDto> rows, LatencyDistribution latency) {
+        super(rows, WorldGdpDto::getCountry_code, WorldGdpDto::getCountry_code, latency);
+    }
+
+    @Override
+    public Mono<WorldGdpDto> findById(String countryCode) {
+        return table.one(() -> table.get(countryCode));
+    }
+
+    @Override
+    public Flux<WorldGdpDto> findByCountryCodeIn(Collection<String> countryCodes) {
+        return table.many(() -> table.select(countryCodes));
+    }
+
+    @Override
+    public <S extends WorldGdpDto> Mono<S> insert(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends WorldGdpDto> Flux<S> insert(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public <S extends WorldGdpDto> Flux<S> insert(Publisher<S> entities) {
+        return saveAll(entities);
+    }
+}
@@ -0,0 +1,31 @@
+package org.coinen.reactive.persistence.db.local;
+
+import org.coinen.reactive.persistence.db.WorldPopDensityDto;
+import org.coinen.reactive.persistence.db.WorldPopDensityReads;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * The study reads only, there is no Couchbase to hand out operations of.
+ */
+public class InMemoryWorldPopDensityRepository
+    extends InMemoryReactiveRepository<WorldPopDensityDto, String>
+    implements WorldPopDensityReads {
+
+    public InMemoryWorldPopDensityRepository(Collection<WorldPopDensityDto> rows, LatencyDistribution latency) {
+        super(rows, WorldPopDensityDto::getId, WorldPopDensityDto::getId, latency);
+    }
+
+    @Override
+    public Mono<WorldPopDensityDto> findById(String id) {
+        return table.one(() -> table.get(id));
+    }
+
+    // The scan of the study: every region, not only those the N1QL query keeps
+    @Override
+    public Flux<WorldPopDensityDto> findByDensityLessThan10000() {
+        return findAll();
+    }
+}
@@ -0,0 +1,54 @@
+package org.coinen.reactive.persistence.db.local;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency of a local stand-in repository call.
+ *
+ * Specs, all values in milliseconds:
+ * <ul>
+ *     <li>{@code 2000} - fixed, like {@code pg_sleep(2)}</li>
+ *     <li>{@code 5..20} - uniform</li>
+ *     <li>{@code lognormal:5:0.5} - log-normal with the given median and sigma</li>
+ * </ul>
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    Duration next();
+
+    static LatencyDistribution parse(String spec) {
+        String value = spec.trim();
+        try {
+            if (value.startsWith("lognormal:")) {
+                String[] parts = value.split(":");
+                return logNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+            }
+            int range = value.indexOf("..");
+            if (range > 0) {
+                return uniform(
+                    Long.parseLong(value.substring(0, range)),
+                    Long.parseLong(value.substring(range + 2)));
+            }
+            return fixed(Long.parseLong(value));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid latency distribution: '" + spec + "'", e);
+        }
+    }
+
+    static LatencyDistribution fixed(long millis) {
+        Duration latency = Duration.ofMillis(millis);
+        return () -> latency;
+    }
+
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        return () -> Duration.ofNanos(
+            ThreadLocalRandom.current().nextLong(minMillis * 1_000_000, maxMillis * 1_000_000 + 1));
+    }
+
+    static LatencyDistribution logNormal(double medianMillis, double sigma) {
+        return () -> Duration.ofNanos(
+            (long) (medianMillis * 1e6 * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian())));
+    }
+}
@@ -0,0 +1,96 @@
+package org.coinen.reactive.persistence.db.local;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.coinen.reactive.persistence.db.EuropePopulationDto;
+import org.coinen.reactive.persistence.db.EuropePopulationMongoRepository;
+import org.coinen.reactive.persistence.db.UsSalesDataDto;
+import org.coinen.reactive.persistence.db.UsSalesR2dbcRepository;
+import org.coinen.reactive.persistence.db.WorldGdpCassandraRepository;
+import org.coinen.reactive.persistence.db.WorldGdpDto;
+import org.coinen.reactive.persistence.db.WorldPopDensityDto;
+import org.coinen.reactive.persistence.db.WorldPopDensityReads;
+import org.coinen.reactive.persistence.db.jdbc.UsSalesJdbcRepository;
+import org.coinen.reactive.persistence.model.StudyRecordDto;
+import org.springframework.data.r2dbc.function.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * In-process stand-ins for the study repositories, used by the "local" profile.
+ *
+ * Tables are loaded from the region data of external-service, every call is
+ * delayed by a sample of its latency distribution (see {@link InMemoryTable}).
+ */
+@Slf4j
+public final class LocalRepositories {
+    private LocalRepositories() { }
+
+    public static WorldGdpCassandraRepository worldGdp(LatencyDistribution latency) {
+        return new InMemoryWorldGdpRepository(
+            load("world-gdp", (code, value) -> new WorldGdpDto(code, Double.parseDouble(value))),
+            latency);
+    }
+
+    public static EuropePopulationMongoRepository europePopulation(LatencyDistribution latency) {
+        return new InMemoryEuropePopulationRepository(
+            load("europe-pop", (code, value) -> new EuropePopulationDto(new ObjectId(), code, value)),
+            latency);
+    }
+
+    public static WorldPopDensityReads worldPopDensity(LatencyDistribution latency) {
+        return new InMemoryWorldPopDensityRepository(
+            load("world-pop-dens", (code, value) -> new WorldPopDensityDto(code, Double.parseDouble(value))),
+            latency);
+    }
+
+    public static UsSalesJdbcRepository usSalesJdbc(LatencyDistribution latency) {
+        return new InMemoryUsSalesJdbcRepository(
+            load("usa-districts-jdbc", (code, value) -> new UsSalesDataDto(code, Double.parseDouble(value))),
+            latency);
+    }
+
+    /**
+     * Over the in-memory H2 database of the client, the table is created and
+     * filled here.
+     */
+    public static UsSalesR2dbcRepository usSalesR2dbc(DatabaseClient client, LatencyDistribution latency) {
+        H2UsSalesR2dbcRepository repository = new H2UsSalesR2dbcRepository(client, latency);
+        repository.load(
+            load("usa-districts-r2dbc", (code, value) -> new UsSalesDataDto(code, Double.parseDouble(value))));
+        return repository;
+    }
+
+    /**
+     * Bulk write stand-in: acknowledges each batch after one latency sample,
+     * the data is not kept.
+     */
+    public static Function<List<StudyRecordDto>, Mono<Long>> bulkWrite(LatencyDistribution latency) {
+        return batch -> Mono.just((long) batch.size()).delaySubscription(latency.next());
+    }
+
+    private static <T> List<T> load(String study, BiFunction<String, String, T> row) {
+        Properties properties = new Properties();
+        try (InputStream data = LocalRepositories.class.getResourceAsStream("/local/" + study + ".properties")) {
+            if (data == null) {
+                throw new IllegalStateException("No local data for study '" + study + "'");
+            }
+            properties.load(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<T> rows = new ArrayList<>();
+        properties.stringPropertyNames()
+            .forEach(code -> rows.add(row.apply(code, properties.getProperty(code))));
+        log.info("[local] {} loaded with {} regions", study, rows.size());
+        return rows;
+    }
+}
@@ -0,0 +1,232 @@
+package org.coinen.reactive.persistence.external;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Reads the value of an external-service response, {@code {"value":21.5}},
+ * straight from the response bytes, for both the WebClient and the JDK
+ * HttpClient.
+ *
+ * The body as external-service writes it is parsed in place, without a String
+ * or an ObjectMapper. Anything else (whitespace, more fields) goes through
+ * Jackson's streaming parser over the same bytes.
+ */
+public final class ExternalResponseDecoder {
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final byte[] PREFIX = "{\"value\":".getBytes(StandardCharsets.US_ASCII);
+
+    // Mantissas up to 2^53 - 1 and these powers are exact doubles, so one
+    // multiplication or division of them is correctly rounded
+    private static final long MAX_EXACT_MANTISSA = (1L << 53) - 1;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private ExternalResponseDecoder() { }
+
+    /**
+     * Decodes the WebClient response body, its buffers are released once read.
+     */
+    public static Mono<ExternalStudyDto> decode(ClientResponse response) {
+        // A single buffer, the usual case, is joined without copying
+        return DataBufferUtils.join(response.body(BodyExtractors.toDataBuffers()))
+            .map(buffer -> {
+                try {
+                    return ExternalStudyDto.of(decode(buffer.asByteBuffer()));
+                } finally {
+                    DataBufferUtils.release(buffer);
+                }
+            });
+    }
+
+    /**
+     * Body handler of the JDK HttpClient, chunks are decoded where they were
+     * received unless the body is split.
+     */
+    public static HttpResponse.BodyHandler<ExternalStudyDto> bodyHandler() {
+        return info -> new ValueSubscriber();
+    }
+
+    /**
+     * @param body bytes of the response, the position is not moved
+     */
+    public static double decode(ByteBuffer body) {
+        int position = body.position();
+        int limit = body.limit();
+        int i = position + PREFIX.length;
+        if (limit - i < 2) {
+            return parse(body);
+        }
+        for (int j = 0; j < PREFIX.length; j++) {
+            if (body.get(position + j) != PREFIX[j]) {
+                return parse(body);
+            }
+        }
+
+        boolean negative = body.get(i) == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; i < limit; i++) {
+            byte b = body.get(i);
+            if (b >= '0' && b <= '9') {
+                if (mantissa > (MAX_EXACT_MANTISSA - 9) / 10) {
+                    return parse(body);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fraction) {
+                    scale++;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+
+        int exponent = 0;
+        if (i < limit && (body.get(i) == 'E' || body.get(i) == 'e')) {
+            i++;
+            boolean negativeExponent = i < limit && body.get(i) == '-';
+            if (i < limit && (body.get(i) == '-' || body.get(i) == '+')) {
+                i++;
+            }
+            int exponentDigits = 0;
+            for (; i < limit && body.get(i) >= '0' && body.get(i) <= '9'; i++) {
+                if (++exponentDigits > 3) {
+                    return parse(body);
+                }
+                exponent = exponent * 10 + (body.get(i) - '0');
+            }
+            if (exponentDigits == 0) {
+                return parse(body);
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+
+        if (digits == 0 || i != limit - 1 || body.get(i) != '}') {
+            return parse(body);
+        }
+        int power = exponent - scale;
+        double value;
+        if (power == 0) {
+            value = mantissa;
+        } else if (power > 0 && power < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[power];
+        } else if (power < 0 && -power < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-power];
+        } else {
+            return parse(body);
+        }
+        return negative ? -value : value;
+    }
+
+    // Any other JSON object with a numeric "value" field
+    private static double parse(ByteBuffer body) {
+        byte[] bytes;
+        int offset;
+        int length = body.remaining();
+        if (body.hasArray()) {
+            bytes = body.array();
+            offset = body.arrayOffset() + body.position();
+        } else {
+            bytes = new byte[length];
+            body.duplicate().get(bytes);
+            offset = 0;
+        }
+
+        try (JsonParser parser = JSON.createParser(bytes, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("External response is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("value".equals(field) && token != null && token.isNumeric()) {
+                    return parser.getDoubleValue();
+                }
+                parser.skipChildren();
+            }
+            throw new IllegalArgumentException("External response has no numeric value");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class ValueSubscriber implements HttpResponse.BodySubscriber<ExternalStudyDto> {
+        private final CompletableFuture<ExternalStudyDto> result = new CompletableFuture<>();
+        private final List<ByteBuffer> chunks = new ArrayList<>(1);
+
+        @Override
+        public CompletionStage<ExternalStudyDto> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            for (ByteBuffer item : items) {
+                if (item.hasRemaining()) {
+                    chunks.add(item);
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                result.complete(ExternalStudyDto.of(decode(body())));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        private ByteBuffer body() {
+            if (chunks.size() == 1) {
+                return chunks.get(0);
+            }
+            int size = 0;
+            for (ByteBuffer chunk : chunks) {
+                size += chunk.remaining();
+            }
+            ByteBuffer joined = ByteBuffer.allocate(size);
+            chunks.forEach(chunk -> joined.put(chunk.duplicate()));
+            joined.flip();
+            return joined;
+        }
+    }
+}
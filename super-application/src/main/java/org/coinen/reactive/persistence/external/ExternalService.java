@@ -2,9 +2,17 @@ package org.coinen.reactive.persistence.external;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.coinen.reactive.persistence.Studies;
+import org.coinen.reactive.persistence.model.HedgingStatusDto;
+import org.coinen.reactive.persistence.model.StudyBatchRequestDto;
 import org.coinen.reactive.persistence.model.StudyRequestDto;
+import org.coinen.reactive.persistence.utils.LatencyMeter;
+import org.coinen.reactive.persistence.utils.LatencyMeters;
+import org.coinen.reactive.persistence.utils.ReactiveDiagnostics;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -12,40 +20,117 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Instant;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
 
-import static java.time.Duration.between;
-import static java.time.Instant.now;
+import static org.coinen.reactive.persistence.utils.LatencyMeters.Kind.BACKEND;
 
 @Slf4j
 @RequiredArgsConstructor
 public class ExternalService {
+    // Upper bound for cached request URIs per study, regions come from user input
+    private static final int MAX_CACHED_URIS = 10_000;
+    private static final ParameterizedTypeReference<Map<String, Double>> REGION_VALUES =
+        new ParameterizedTypeReference<Map<String, Double>>() { };
+
     private final String externalServiceLocation;
     private final HttpClient httpClient;
     private final WebClient webClient;
+    private final HedgingPolicy hedgingPolicy;
+    // Max regions per batched external call
+    private final int maxBatchSize;
+    // Latency & outcome of external calls, hedges included
+    private final LatencyMeters latencyMeters;
+
+    // Last request URI per study and region, a client keeps its timeout across requests
+    private final Map<Studies, Map<String, RegionUri>> uriCache = newUriCache();
 
     public ExternalStudyDto syncRequest(StudyRequestDto request) throws IOException, InterruptedException {
-        Instant start = now();
+        ReactiveDiagnostics.checkBlocking("http");
         HttpRequest req = HttpRequest.newBuilder()
             .uri(externalServiceUri(request))
+            .timeout(hedgingPolicy.deadline(request.getTimout()))
             .build();
 
-        HttpResponse<String> response = httpClient
-            .send(req, HttpResponse.BodyHandlers.ofString());
-        log.debug("External HTTP call finished in {}", between(start, now()));
-        return ExternalStudyDto.fromString(response.body());
+        LatencyMeter meter = latencyMeters.meter(BACKEND, "external");
+        long start = meter.start();
+        try {
+            ExternalStudyDto result = httpClient
+                .send(req, ExternalResponseDecoder.bodyHandler())
+                .body();
+            meter.success(start);
+            return result;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            meter.error(start, e);
+            throw e;
+        }
     }
 
     public Mono<ExternalStudyDto> reactiveRequest(StudyRequestDto request) {
-        return Mono.from(
-            webClient
+        Mono<ExternalStudyDto> call = hedgingPolicy.isEnabled() ?
+            hedgedRequest(request) :
+            timedRequest(request);
+
+        return latencyMeters.meter(BACKEND, "external")
+            .time(call.timeout(hedgingPolicy.deadline(request.getTimout())))
+            .doOnError(TimeoutException.class, __ -> hedgingPolicy.onDeadlineExceeded());
+    }
+
+    /**
+     * Resolves all regions of the batch in one external call, regions unknown
+     * to the external service are missing from the result. Not hedged, a
+     * hedge would duplicate the whole batch.
+     */
+    public Mono<Map<String, Double>> reactiveBatchRequest(StudyBatchRequestDto request) {
+        Mono<Map<String, Double>> call = webClient
+            .get()
+            .uri(externalServiceBatchUri(request))
+            .retrieve()
+            .bodyToMono(REGION_VALUES)
+            .timeout(hedgingPolicy.deadline(request.getTimout()));
+
+        return latencyMeters.meter(BACKEND, "external-batch")
+            .time(call)
+            .doOnError(TimeoutException.class, __ -> hedgingPolicy.onDeadlineExceeded());
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public HedgingStatusDto hedgingStatus() {
+        return hedgingPolicy.toStatus();
+    }
+
+    // Sends a second request once the first one is slower than usual, the slower one is cancelled
+    private Mono<ExternalStudyDto> hedgedRequest(StudyRequestDto request) {
+        Duration hedgeDelay = hedgingPolicy.hedgeDelay(request.getStudy().getName());
+        if (hedgeDelay == null) {
+            return timedRequest(request);
+        }
+
+        Mono<ExternalStudyDto> hedge = Mono.delay(hedgeDelay)
+            .flatMap(__ -> hedgingPolicy.tryAcquireHedge() ?
+                timedRequest(request).doOnNext(___ -> hedgingPolicy.onHedgeWin()) :
+                Mono.<ExternalStudyDto>never());
+
+        return Mono.first(timedRequest(request), hedge);
+    }
+
+    private Mono<ExternalStudyDto> timedRequest(StudyRequestDto request) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return webClient
                 .get()
                 .uri(externalServiceUri(request))
                 .exchange()
-                .flatMap(rsp -> rsp.bodyToMono(String.class)
-                    .map(ExternalStudyDto::fromString))
-        );
+                .flatMap(ExternalResponseDecoder::decode)
+                .doOnNext(__ -> hedgingPolicy.record(request.getStudy().getName(), System.nanoTime() - start));
+        });
     }
 
 
@@ -58,11 +143,54 @@ public class ExternalService {
     }
 
     private URI externalServiceUri(StudyRequestDto request) {
+        Map<String, RegionUri> regionUris = uriCache.get(request.getStudy());
+        RegionUri cached = regionUris.get(request.getRegion());
+        if (cached != null && Objects.equals(cached.timeout, request.getTimout())) {
+            return cached.uri;
+        }
+        URI uri = buildExternalServiceUri(request);
+        // Made up regions fill the cache up, it then starts over with the regions in use
+        if (regionUris.size() >= MAX_CACHED_URIS) {
+            regionUris.clear();
+        }
+        regionUris.put(request.getRegion(), new RegionUri(request.getTimout(), uri));
+        return uri;
+    }
+
+    private URI buildExternalServiceUri(StudyRequestDto request) {
         String url = externalServiceLocation +
             "/service/" +
-            request.getStudy() + "/" +
+            request.getStudy().getName() + "/" +
             request.getRegion() +
             (request.getTimout() != null ? "?timeout=" + request.getTimout() : "");
         return URI.create(url);
     }
+
+    private URI externalServiceBatchUri(StudyBatchRequestDto request) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(externalServiceLocation)
+            .path("/service/{study}")
+            .queryParam("regions", String.join(",", request.getRegions()));
+        if (request.getTimout() != null) {
+            builder.queryParam("timeout", request.getTimout());
+        }
+        return builder.buildAndExpand(request.getStudy().getName()).encode().toUri();
+    }
+
+    private static Map<Studies, Map<String, RegionUri>> newUriCache() {
+        Map<Studies, Map<String, RegionUri>> cache = new EnumMap<>(Studies.class);
+        for (Studies study : Studies.values()) {
+            cache.put(study, new ConcurrentHashMap<>());
+        }
+        return cache;
+    }
+
+    private static final class RegionUri {
+        private final String timeout;
+        private final URI uri;
+
+        RegionUri(String timeout, URI uri) {
+            this.timeout = timeout;
+            this.uri = uri;
+        }
+    }
 }
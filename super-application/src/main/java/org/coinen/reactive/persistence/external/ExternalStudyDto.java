@@ -11,6 +11,13 @@ public class ExternalStudyDto {
 
     private double value;
 
+    public static ExternalStudyDto of(double value) {
+        ExternalStudyDto dto = new ExternalStudyDto();
+        dto.setValue(value);
+        return dto;
+    }
+
+    // Data binding through Jackson, responses are decoded by ExternalResponseDecoder instead
     public static ExternalStudyDto fromString(String body) {
         try {
             return om.readValue(body, ExternalStudyDto.class);
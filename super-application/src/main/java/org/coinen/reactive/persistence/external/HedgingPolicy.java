@@ -0,0 +1,109 @@
+package org.coinen.reactive.persistence.external;
+
+import org.coinen.reactive.persistence.model.HedgingStatusDto;
+import org.coinen.reactive.persistence.utils.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides when to hedge an external request and keeps hedging within budget.
+ *
+ * Every request earns {@code budget} of a hedge token, every hedge spends a
+ * whole one, so on average no more than that share of requests is doubled.
+ */
+public class HedgingPolicy {
+    private static final long TOKEN = 1000;
+    // Tokens saved up while hedging is not needed, allows short bursts of hedges
+    private static final long MAX_TOKENS = 10 * TOKEN;
+    private static final Duration HISTOGRAM_WINDOW = Duration.ofSeconds(30);
+
+    private final HedgingSettings settings;
+    private final long tokensPerRequest;
+    private final AtomicLong tokens = new AtomicLong();
+
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder deadlineExceeded = new LongAdder();
+
+    public HedgingPolicy(HedgingSettings settings) {
+        this.settings = settings;
+        this.tokensPerRequest = Math.round(settings.getBudget() * TOKEN);
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    public Duration deadline(String timeout) {
+        return expectedLatency(timeout).plus(settings.getDeadlineSlack());
+    }
+
+    /**
+     * @return delay after which a hedge should be sent, null when the study has too few samples
+     */
+    public Duration hedgeDelay(String study) {
+        requests.increment();
+        tokens.accumulateAndGet(tokensPerRequest, (current, earned) -> Math.min(MAX_TOKENS, current + earned));
+
+        LatencyHistogram histogram = latencies.get(study);
+        if (histogram == null || histogram.count() < settings.getMinSamples()) {
+            return null;
+        }
+        return Duration.ofNanos(histogram.percentile(settings.getPercentile()));
+    }
+
+    public boolean tryAcquireHedge() {
+        for (;;) {
+            long current = tokens.get();
+            if (current < TOKEN) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - TOKEN)) {
+                hedges.increment();
+                return true;
+            }
+        }
+    }
+
+    public void record(String study, long nanos) {
+        latencies.computeIfAbsent(study, __ -> new LatencyHistogram(HISTOGRAM_WINDOW)).record(nanos);
+    }
+
+    public void onHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    public void onDeadlineExceeded() {
+        deadlineExceeded.increment();
+    }
+
+    public HedgingStatusDto toStatus() {
+        long total = requests.sum();
+        long hedged = hedges.sum();
+        return new HedgingStatusDto(
+            total,
+            hedged,
+            hedgeWins.sum(),
+            deadlineExceeded.sum(),
+            total == 0 ? 0 : (double) hedged / total
+        );
+    }
+
+    private Duration expectedLatency(String timeout) {
+        if (timeout != null) {
+            try {
+                return Duration.ofMillis(Integer.parseInt(timeout));
+            } catch (NumberFormatException e) {
+                // Same fallback as external-service uses for unparsable timeouts
+            }
+        }
+        return settings.getDefaultLatency();
+    }
+}
@@ -0,0 +1,19 @@
+package org.coinen.reactive.persistence.external;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class HedgingSettings {
+    // Deadline is the expected latency (the request timeout) plus slack
+    private final Duration defaultLatency;
+    private final Duration deadlineSlack;
+
+    // A hedge is sent once the primary request is slower than this percentile
+    private final boolean enabled;
+    private final double percentile;
+    private final long minSamples;
+    // Share of requests that may be hedged, also the max extra load
+    private final double budget;
+}
@@ -0,0 +1,14 @@
+package org.coinen.reactive.persistence.external;
+
+import lombok.Value;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Value
+public class HttpClientSettings {
+    private final HttpClient.Version version;
+    private final int maxConnections;
+    private final Duration acquireTimeout;
+    private final Duration idleTimeout;
+}
@@ -0,0 +1,48 @@
+package org.coinen.reactive.persistence.external;
+
+import reactor.netty.ConnectionObserver;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.http.HttpClient;
+
+public final class HttpClients {
+    private static final String POOL_NAME = "external-service";
+
+    private HttpClients() { }
+
+    /**
+     * JDK client for the blocking path. Over plain HTTP the HTTP/2 version is
+     * negotiated with an h2c upgrade, falling back to keep-alive HTTP/1.1.
+     *
+     * Its connection pool is process wide and sized by JVM flags
+     * ({@code -Djdk.httpclient.connectionPoolSize},
+     * {@code -Djdk.httpclient.keepalive.timeout}), set for bootRun and docker.
+     */
+    public static HttpClient newJdkClient(HttpClientSettings settings) {
+        return HttpClient.newBuilder()
+            .version(settings.getVersion())
+            .build();
+    }
+
+    /**
+     * Reactor Netty client for the reactive path, with a fixed connection pool
+     * and eviction of keep-alive connections left idle in it. A connection is
+     * only watched while released, a slow response is never cut.
+     */
+    public static reactor.netty.http.client.HttpClient newNettyClient(HttpClientSettings settings) {
+        var connectionProvider = ConnectionProvider.fixed(
+            POOL_NAME,
+            settings.getMaxConnections(),
+            settings.getAcquireTimeout().toMillis());
+
+        return reactor.netty.http.client.HttpClient.create(connectionProvider)
+            .keepAlive(true)
+            .observe((connection, state) -> {
+                if (state == ConnectionObserver.State.RELEASED) {
+                    IdleConnectionCloser.watch(connection.channel(), settings.getIdleTimeout());
+                } else if (state == ConnectionObserver.State.ACQUIRED) {
+                    IdleConnectionCloser.unwatch(connection.channel());
+                }
+            });
+    }
+}
@@ -0,0 +1,40 @@
+package org.coinen.reactive.persistence.external;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closes pooled connections that neither read nor wrote for the idle timeout.
+ *
+ * Only on released connections: it is added when a connection goes back to the
+ * pool and removed when the connection is acquired again.
+ */
+final class IdleConnectionCloser extends IdleStateHandler {
+    private static final String NAME = "idleConnectionCloser";
+
+    private IdleConnectionCloser(Duration idleTimeout) {
+        super(0, 0, idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    static void watch(Channel channel, Duration idleTimeout) {
+        if (channel.pipeline().get(NAME) == null) {
+            channel.pipeline().addFirst(NAME, new IdleConnectionCloser(idleTimeout));
+        }
+    }
+
+    static void unwatch(Channel channel) {
+        if (channel.pipeline().get(NAME) != null) {
+            channel.pipeline().remove(NAME);
+        }
+    }
+
+    @Override
+    protected void channelIdle(ChannelHandlerContext ctx, IdleStateEvent evt) {
+        ctx.close();
+    }
+}
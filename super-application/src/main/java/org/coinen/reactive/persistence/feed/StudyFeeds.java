@@ -0,0 +1,159 @@
+package org.coinen.reactive.persistence.feed;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.coinen.reactive.persistence.Studies;
+import org.coinen.reactive.persistence.db.DatabaseFacade;
+import org.coinen.reactive.persistence.db.RegionSnapshotCache;
+import org.coinen.reactive.persistence.external.ExternalService;
+import org.coinen.reactive.persistence.model.RegionResultDto;
+import org.coinen.reactive.persistence.model.StudyBatchRequestDto;
+import org.coinen.reactive.persistence.model.StudyResultDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Live region results per study.
+ *
+ * Each study has one upstream that polls the region snapshot and diffs it
+ * against the previous poll. Only changed regions go to the external service,
+ * and the update is multicast to all subscribers. A new subscriber first gets
+ * the full map of the latest update, then deltas. A region gone from the table
+ * is sent once with a null result. The upstream stops with the last subscriber.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class StudyFeeds {
+    private final DatabaseFacade dbFacade;
+    private final ExternalService externalService;
+    private final Duration pollInterval;
+
+    private final ConcurrentMap<Studies, Flux<FeedUpdate>> feeds = new ConcurrentHashMap<>();
+
+    /**
+     * @return empty when the study has no persisted data to follow
+     */
+    public Optional<Flux<RegionResultDto>> updates(Studies study) {
+        RegionSnapshotCache<?, Object> snapshot = dbFacade.regionSnapshot(study);
+        if (snapshot == null) {
+            return Optional.empty();
+        }
+        Flux<FeedUpdate> feed = feeds.computeIfAbsent(study, __ -> newFeed(study, snapshot));
+        return Optional.of(feed
+            .index()
+            .concatMapIterable(update -> update.getT1() == 0 ?
+                update.getT2().all :
+                update.getT2().changed));
+    }
+
+    private Flux<FeedUpdate> newFeed(Studies study, RegionSnapshotCache<?, Object> snapshot) {
+        // Diff state is per connection, so a reconnected feed starts with a full map again
+        return Flux.defer(() -> {
+                StudyFeed feed = new StudyFeed(study, snapshot);
+                return Flux.interval(Duration.ZERO, pollInterval)
+                    .onBackpressureDrop()
+                    .concatMap(__ -> feed.poll());
+            })
+            .replay(1)
+            .refCount();
+    }
+
+    private final class StudyFeed {
+        private final Studies study;
+        private final RegionSnapshotCache<?, Object> snapshot;
+
+        // Accessed from the sequential poll loop only
+        private Map<String, Object> persisted = Map.of();
+        private Map<String, RegionResultDto> results = Map.of();
+
+        StudyFeed(Studies study, RegionSnapshotCache<?, Object> snapshot) {
+            this.study = study;
+            this.snapshot = snapshot;
+        }
+
+        Mono<FeedUpdate> poll() {
+            return snapshot.values()
+                .flatMap(values -> {
+                    List<String> changed = new ArrayList<>();
+                    values.forEach((region, value) -> {
+                        if (!Objects.equals(value, persisted.get(region))) {
+                            changed.add(region);
+                        }
+                    });
+                    List<String> removed = new ArrayList<>();
+                    results.keySet().forEach(region -> {
+                        if (!values.containsKey(region)) {
+                            removed.add(region);
+                        }
+                    });
+                    if (changed.isEmpty() && removed.isEmpty()) {
+                        return Mono.<FeedUpdate>empty();
+                    }
+                    return resolve(changed, values).map(resolved -> apply(values, resolved, removed));
+                })
+                .onErrorResume(e -> {
+                    // The next poll retries the same regions
+                    log.warn("[{} feed] poll failed", study.getName(), e);
+                    return Mono.empty();
+                });
+        }
+
+        private Mono<List<RegionResultDto>> resolve(List<String> regions, Map<String, ?> values) {
+            return Flux.fromIterable(regions)
+                .buffer(externalService.getMaxBatchSize())
+                .concatMap(chunk -> externalService
+                    .reactiveBatchRequest(new StudyBatchRequestDto(study, chunk, null))
+                    .flatMapIterable(external -> {
+                        List<RegionResultDto> resolved = new ArrayList<>(chunk.size());
+                        for (String region : chunk) {
+                            Double value = external.get(region);
+                            if (value != null) {
+                                resolved.add(new RegionResultDto(region, StudyResultDto.generic(value, values.get(region))));
+                            }
+                        }
+                        return resolved;
+                    }))
+                .collectList();
+        }
+
+        private FeedUpdate apply(Map<String, Object> values, List<RegionResultDto> changed, List<String> removed) {
+            Map<String, RegionResultDto> updated = new HashMap<>(results);
+            // Regions the external service had no value for stay changed, the next poll retries them
+            Map<String, Object> resolvedValues = new HashMap<>(persisted);
+            resolvedValues.keySet().retainAll(values.keySet());
+            List<RegionResultDto> delta = new ArrayList<>(changed);
+            changed.forEach(result -> {
+                updated.put(result.getRegion(), result);
+                resolvedValues.put(result.getRegion(), values.get(result.getRegion()));
+            });
+            removed.forEach(region -> {
+                updated.remove(region);
+                delta.add(new RegionResultDto(region, null));
+            });
+            persisted = resolvedValues;
+            results = updated;
+            return new FeedUpdate(updated.values(), delta);
+        }
+    }
+
+    private static final class FeedUpdate {
+        private final Collection<RegionResultDto> all;
+        private final List<RegionResultDto> changed;
+
+        FeedUpdate(Collection<RegionResultDto> all, List<RegionResultDto> changed) {
+            this.all = all;
+            this.changed = changed;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.coinen.reactive.persistence.ingest;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class IngestSettings {
+    // A batch is written once it is full, a partial one at least every max delay
+    private final int maxBatchSize;
+    private final Duration maxBatchDelay;
+
+    // Batches of one request written concurrently, the request body is read no faster
+    private final int maxInFlightBatches;
+}
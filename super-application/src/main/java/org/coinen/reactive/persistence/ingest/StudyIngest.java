@@ -0,0 +1,122 @@
+package org.coinen.reactive.persistence.ingest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.coinen.reactive.persistence.Studies;
+import org.coinen.reactive.persistence.model.IngestResultDto;
+import org.coinen.reactive.persistence.model.StudyRecordDto;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams updated statistics into the backend of a study.
+ *
+ * Records are grouped into batches bounded by size and time, each batch is one
+ * bulk write. Only a few batches of a request are written at once and the
+ * records are pulled no faster than they are written, so a slow backend slows
+ * down reading of the request body instead of filling up memory.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class StudyIngest {
+    private final StudyWriters writers;
+    private final IngestSettings settings;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @return empty when the study has no persisted data to write
+     */
+    public Optional<Mono<IngestResultDto>> ingest(Studies study, Flux<StudyRecordDto> records) {
+        StudyWriter writer = writers.get(study);
+        if (writer == null) {
+            return Optional.empty();
+        }
+        return Optional.of(Mono.defer(() -> {
+            Timer batchTimer = Timer.builder("app.ingest.batch")
+                .tag("study", study.getName())
+                .tag("backend", writer.getBackend())
+                .register(meterRegistry);
+            Counter written = Counter.builder("app.ingest.records")
+                .tag("study", study.getName())
+                .tag("backend", writer.getBackend())
+                .register(meterRegistry);
+            AtomicLong recordCount = new AtomicLong();
+            AtomicLong batchCount = new AtomicLong();
+            long start = System.nanoTime();
+
+            return batches(records.handle(StudyIngest::validate), settings.getMaxBatchSize(), settings.getMaxBatchDelay())
+                .flatMap(batch -> {
+                    long batchStart = System.nanoTime();
+                    return writer.getWrite().apply(batch)
+                        .doOnSuccess(__ -> {
+                            batchTimer.record(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
+                            written.increment(batch.size());
+                            recordCount.addAndGet(batch.size());
+                            batchCount.incrementAndGet();
+                        });
+                }, settings.getMaxInFlightBatches())
+                .onErrorMap(NumberFormatException.class, e ->
+                    new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a number: " + e.getMessage(), e))
+                .then(Mono.fromSupplier(() -> new IngestResultDto(
+                    study.getName(),
+                    writer.getBackend(),
+                    recordCount.get(),
+                    batchCount.get(),
+                    (System.nanoTime() - start) / 1e6)))
+                .doOnSuccess(result -> log.debug("[{} ingest] {} records in {} batches, {} ms",
+                    study.getName(), result.getRecords(), result.getBatches(), result.getMillis()));
+        }));
+    }
+
+    private static void validate(StudyRecordDto record, SynchronousSink<StudyRecordDto> sink) {
+        if (record.getRegion() == null || record.getValue() == null) {
+            sink.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Both region and value are required"));
+        } else {
+            sink.next(record);
+        }
+    }
+
+    /**
+     * Groups records into lists of up to {@code maxSize}, a partial list is
+     * emitted at least every {@code maxDelay}.
+     *
+     * Unlike {@code bufferTimeout} the timer never emits without demand: ticks
+     * are merged into the record stream as flush markers, so records are only
+     * requested as batches are.
+     */
+    static <T> Flux<List<T>> batches(Flux<T> records, int maxSize, Duration maxDelay) {
+        return records.publish(shared -> {
+            Flux<Optional<T>> flushes = Flux.interval(maxDelay, maxDelay)
+                .onBackpressureDrop()
+                .map(__ -> Optional.<T>empty())
+                .takeUntilOther(shared.ignoreElements());
+
+            // Accessed serially, merge does not emit concurrently
+            AtomicReference<List<T>> pending = new AtomicReference<>(new ArrayList<>(maxSize));
+            return Flux.merge(shared.map(Optional::of), flushes)
+                .<List<T>>handle((signal, sink) -> {
+                    List<T> batch = pending.get();
+                    signal.ifPresent(batch::add);
+                    if (batch.size() >= maxSize || (!signal.isPresent() && !batch.isEmpty())) {
+                        pending.set(new ArrayList<>(maxSize));
+                        sink.next(batch);
+                    }
+                })
+                .concatWith(Mono.fromSupplier(pending::get).filter(batch -> !batch.isEmpty()));
+        });
+    }
+}
@@ -0,0 +1,22 @@
+package org.coinen.reactive.persistence.ingest;
+
+import lombok.Value;
+import org.coinen.reactive.persistence.Studies;
+import org.coinen.reactive.persistence.model.StudyRecordDto;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Bulk write of one study: a whole batch goes to the backend in one round
+ * trip and is upserted by region.
+ */
+@Value
+public class StudyWriter {
+    private final Studies study;
+    // Name of the backend for metrics
+    private final String backend;
+    // Emits the number of records written
+    private final Function<List<StudyRecordDto>, Mono<Long>> write;
+}
@@ -0,0 +1,174 @@
+package org.coinen.reactive.persistence.ingest;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.SimpleStatement;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.coinen.reactive.persistence.Studies;
+import org.coinen.reactive.persistence.db.WorldPopDensityCouchbaseRepository;
+import org.coinen.reactive.persistence.db.WorldPopDensityDto;
+import org.coinen.reactive.persistence.model.StudyRecordDto;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.r2dbc.function.DatabaseClient;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.coinen.reactive.persistence.utils.ReactiveDiagnostics.blocking;
+
+/**
+ * Bulk writers of all studies with persisted data, looked up by {@link Studies}.
+ */
+public class StudyWriters {
+    private static final String US_SALES_UPSERT =
+        "insert into us_sales_by_districts (code, sales) values (?, ?) " +
+        "on conflict (code) do update set sales = excluded.sales";
+
+    private final Map<Studies, StudyWriter> writers = new EnumMap<>(Studies.class);
+
+    public StudyWriters(Collection<StudyWriter> writers) {
+        writers.forEach(writer -> this.writers.put(writer.getStudy(), writer));
+    }
+
+    /**
+     * @return writer of the study, null when the study has no persisted data
+     */
+    public StudyWriter get(Studies study) {
+        return writers.get(study);
+    }
+
+    public static StudyWriters create(
+        Scheduler jdbcScheduler,
+        ReactiveCassandraOperations cassandraOperations,
+        ReactiveMongoOperations mongoOperations,
+        WorldPopDensityCouchbaseRepository worldPopDensityCouchbaseRepository,
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        DatabaseClient databaseClient
+    ) {
+        Function<List<StudyRecordDto>, Mono<Long>> usSalesR2dbc = batch -> r2dbcUpsert(databaseClient, batch);
+
+        return new StudyWriters(List.of(
+            new StudyWriter(
+                Studies.WORLD_GDP,
+                "cassandra",
+                batch -> cassandraUnloggedBatch(cassandraOperations, batch)),
+            new StudyWriter(
+                Studies.EUROPE_POP,
+                "mongo",
+                batch -> mongoBulkUpsert(mongoOperations, batch)),
+            new StudyWriter(
+                Studies.WORLD_POP_DENSITY,
+                "couchbase",
+                batch -> worldPopDensityCouchbaseRepository
+                    .saveAll(Flux.fromIterable(batch)
+                        .map(record -> new WorldPopDensityDto(record.getRegion(), Double.parseDouble(record.getValue()))))
+                    .count()),
+            new StudyWriter(
+                Studies.US_SALES_JDBC,
+                "jdbc",
+                batch -> Mono.fromCallable(blocking("jdbc", () -> jdbcBatchUpsert(jdbcTemplate, transactionTemplate, batch)))
+                    .subscribeOn(jdbcScheduler)),
+            new StudyWriter(Studies.US_DISTRICS_R2DBC, "r2dbc", usSalesR2dbc),
+            // Same table as the R2DBC study
+            new StudyWriter(Studies.US_DISTRICS_BLOCKING, "r2dbc", usSalesR2dbc)
+        ));
+    }
+
+    // Every row is its own partition, so the batch is unlogged: it only saves
+    // round trips and does not pay for the batch log
+    private static Mono<Long> cassandraUnloggedBatch(ReactiveCassandraOperations operations, List<StudyRecordDto> batch) {
+        BatchStatement statement = new BatchStatement(BatchStatement.Type.UNLOGGED);
+        for (StudyRecordDto record : batch) {
+            statement.add(new SimpleStatement(
+                "INSERT INTO world_gdp (country_code, gdp) VALUES (?, ?)",
+                record.getRegion(),
+                Float.parseFloat(record.getValue())));
+        }
+        return operations.getReactiveCqlOperations()
+            .execute(statement)
+            .thenReturn((long) batch.size());
+    }
+
+    // Upserts by code, so that regions stay unique for findByCode
+    private static Mono<Long> mongoBulkUpsert(ReactiveMongoOperations operations, List<StudyRecordDto> batch) {
+        List<WriteModel<Document>> upserts = new ArrayList<>(batch.size());
+        for (StudyRecordDto record : batch) {
+            upserts.add(new UpdateOneModel<>(
+                Filters.eq("code", record.getRegion()),
+                Updates.set("population", record.getValue()),
+                new UpdateOptions().upsert(true)));
+        }
+        return operations
+            .execute("population", collection -> collection.bulkWrite(upserts, new BulkWriteOptions().ordered(false)))
+            .map(result -> (long) result.getMatchedCount() + result.getUpserts().size())
+            .reduce(0L, Long::sum);
+    }
+
+    private static long jdbcBatchUpsert(
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        List<StudyRecordDto> batch
+    ) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (StudyRecordDto record : batch) {
+            rows.add(new Object[] {record.getRegion(), sales(record)});
+        }
+        // One transaction and one executeBatch round trip per batch
+        transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(US_SALES_UPSERT, rows));
+        return rows.size();
+    }
+
+    // One multi-row statement per batch, Postgres bind markers are numbered
+    private static Mono<Long> r2dbcUpsert(DatabaseClient client, List<StudyRecordDto> records) {
+        List<StudyRecordDto> batch = lastPerRegion(records);
+        StringBuilder sql = new StringBuilder("insert into us_sales_by_districts (code, sales) values ");
+        for (int i = 0; i < batch.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                .append("($").append(2 * i + 1).append(", $").append(2 * i + 2).append(')');
+        }
+        sql.append(" on conflict (code) do update set sales = excluded.sales");
+
+        return Mono.defer(() -> {
+            DatabaseClient.GenericExecuteSpec statement = client.execute().sql(sql.toString());
+            for (int i = 0; i < batch.size(); i++) {
+                StudyRecordDto record = batch.get(i);
+                statement = statement
+                    .bind(2 * i, record.getRegion())
+                    .bind(2 * i + 1, sales(record));
+            }
+            return statement.fetch().rowsUpdated().map(Integer::longValue);
+        });
+    }
+
+    // "on conflict do update" fails when one statement hits the same row twice,
+    // so only the last record of each region is kept
+    static List<StudyRecordDto> lastPerRegion(List<StudyRecordDto> batch) {
+        Map<String, StudyRecordDto> last = new LinkedHashMap<>();
+        for (StudyRecordDto record : batch) {
+            last.put(record.getRegion(), record);
+        }
+        return last.size() == batch.size() ? batch : new ArrayList<>(last.values());
+    }
+
+    // Sales are stored as integers
+    private static int sales(StudyRecordDto record) {
+        return (int) Math.round(Double.parseDouble(record.getValue()));
+    }
+}
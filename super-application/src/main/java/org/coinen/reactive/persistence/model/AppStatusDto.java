@@ -2,6 +2,8 @@ package org.coinen.reactive.persistence.model;
 
 import lombok.Value;
 
+import java.util.List;
+
 @Value
 public class AppStatusDto {
     private final int poolSize;
@@ -9,4 +11,11 @@ public class AppStatusDto {
     private final int poolQueueSize;
     private final int activeRequests;
     private final int externalServiceActiveRequests;
+    private final List<BulkheadStatusDto> bulkheads;
+    private final R2dbcPoolStatusDto r2dbcPool;
+    private final HedgingStatusDto hedging;
+    private final List<LatencyStatusDto> latencies;
+    private final List<ConcurrencyLimitStatusDto> limiters;
+    private final List<CircuitBreakerStatusDto> circuitBreakers;
+    private final DiagnosticsStatusDto diagnostics;
 }
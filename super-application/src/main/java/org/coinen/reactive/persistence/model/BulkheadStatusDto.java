@@ -0,0 +1,16 @@
+package org.coinen.reactive.persistence.model;
+
+import lombok.Value;
+
+@Value
+public class BulkheadStatusDto {
+    private final String name;
+    private final int limit;
+    private final int active;
+    private final int queued;
+    private final int queueCapacity;
+    private final long rejected;
+    private final double latencyMillis;
+    private final double throughput;
+    private final double concurrency;
+}
@@ -0,0 +1,14 @@
+package org.coinen.reactive.persistence.model;
+
+import lombok.Value;
+
+@Value
+public class CircuitBreakerStatusDto {
+    private final String name;
+    private final String state;
+    private final int calls;
+    private final double failureRate;
+    private final double slowCallRate;
+    private final long notPermitted;
+    private final long opened;
+}
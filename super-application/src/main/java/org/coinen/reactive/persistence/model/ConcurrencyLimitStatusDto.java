@@ -0,0 +1,16 @@
+package org.coinen.reactive.persistence.model;
+
+import lombok.Value;
+
+@Value
+public class ConcurrencyLimitStatusDto {
+    private final String name;
+    private final int limit;
+    private final int inFlight;
+    private final int queued;
+    private final long accepted;
+    private final long rejected;
+    private final double latencyMillis;
+    private final double noLoadLatencyMillis;
+    private final double throughput;
+}
@@ -0,0 +1,14 @@
+package org.coinen.reactive.persistence.model;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+@Value
+public class DiagnosticsStatusDto {
+    private final boolean enabled;
+    // Blocking calls made on non-blocking threads, by operation
+    private final Map<String, Long> blockingCalls;
+    private final List<RequestTraceStatusDto> requests;
+}
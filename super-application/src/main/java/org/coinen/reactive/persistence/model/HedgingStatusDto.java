@@ -0,0 +1,12 @@
+package org.coinen.reactive.persistence.model;
+
+import lombok.Value;
+
+@Value
+public class HedgingStatusDto {
+    private final long requests;
+    private final long hedges;
+    private final long hedgeWins;
+    private final long deadlineExceeded;
+    private final double hedgeRate;
+}
@@ -0,0 +1,12 @@
+package org.coinen.reactive.persistence.model;
+
+import lombok.Value;
+
+@Value
+public class IngestResultDto {
+    private final String study;
+    private final String backend;
+    private final long records;
+    private final long batches;
+    private final double millis;
+}
@@ -0,0 +1,16 @@
+package org.coinen.reactive.persistence.model;
+
+import lombok.Value;
+
+@Value
+public class LatencyStatusDto {
+    private final String kind;
+    private final String name;
+    private final long count;
+    private final int inFlight;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double p999Millis;
+    private final long errors;
+    private final long timeouts;
+}
@@ -0,0 +1,14 @@
+package org.coinen.reactive.persistence.model;
+
+import lombok.Value;
+
+@Value
+public class R2dbcPoolStatusDto {
+    private final int maxSize;
+    private final int size;
+    private final int acquired;
+    private final int idle;
+    private final int pending;
+    private final double acquireLatencyMillis;
+    private final double maxAcquireLatencyMillis;
+}
@@ -0,0 +1,12 @@
+package org.coinen.reactive.persistence.model;
+
+import lombok.Value;
+
+/**
+ * One element of a batch response, the result tagged with its region.
+ */
+@Value
+public class RegionResultDto {
+    private final String region;
+    private final StudyResultDto result;
+}
@@ -0,0 +1,14 @@
+package org.coinen.reactive.persistence.model;
+
+import lombok.Value;
+
+@Value
+public class RequestTraceStatusDto {
+    private final String kind;
+    private final String name;
+    private final long count;
+    private final double meanThreadHops;
+    private final double maxThreadHops;
+    private final double meanQueueWaitMillis;
+    private final double maxQueueWaitMillis;
+}
@@ -0,0 +1,17 @@
+package org.coinen.reactive.persistence.model;
+
+import lombok.Value;
+import org.coinen.reactive.persistence.Studies;
+
+import java.util.List;
+
+@Value
+public class StudyBatchRequestDto {
+    private final Studies study;
+    private final List<String> regions;
+    private final String timout;
+
+    public StudyRequestDto forRegion(String region) {
+        return new StudyRequestDto(study, region, timout);
+    }
+}
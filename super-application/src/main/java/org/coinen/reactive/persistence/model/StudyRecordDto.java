@@ -0,0 +1,17 @@
+package org.coinen.reactive.persistence.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One updated statistic of an ingest stream. Values are kept as text: most
+ * studies parse them as numbers, Europe populations are labels like "36M".
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class StudyRecordDto {
+    private String region;
+    private String value;
+}
@@ -1,10 +1,11 @@
 package org.coinen.reactive.persistence.model;
 
 import lombok.Value;
+import org.coinen.reactive.persistence.Studies;
 
 @Value
 public class StudyRequestDto {
-    private final String study;
+    private final Studies study;
     private final String region;
     private final String timout;
 }
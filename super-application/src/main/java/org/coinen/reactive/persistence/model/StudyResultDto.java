@@ -2,8 +2,7 @@ package org.coinen.reactive.persistence.model;
 
 import lombok.RequiredArgsConstructor;
 import lombok.Value;
-
-import static java.lang.String.format;
+import org.coinen.reactive.persistence.utils.FixedDecimals;
 
 @Value
 @RequiredArgsConstructor
@@ -24,9 +23,14 @@ public class StudyResultDto {
         return new StudyResultDto("red", colorValue, formatValue(pinValue));
     }
 
+    // Persisted data is unavailable, only the external value is shown
+    public static StudyResultDto degraded(Double colorValue) {
+        return new StudyResultDto("red", colorValue);
+    }
+
     private static String formatValue(Object pinValue) {
         return (pinValue instanceof Double) ?
-            format("%3.1f", pinValue) :
+            FixedDecimals.oneDecimal((Double) pinValue) :
             pinValue.toString();
     }
 }
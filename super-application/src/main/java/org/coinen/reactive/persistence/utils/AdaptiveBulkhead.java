@@ -0,0 +1,149 @@
+package org.coinen.reactive.persistence.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.coinen.reactive.persistence.model.BulkheadStatusDto;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded executor for one blocking downstream (external HTTP, JDBC, ...).
+ *
+ * Work beyond the pool size waits in a bounded queue, anything beyond that is
+ * rejected immediately. The pool size itself follows a gradient limit: it grows
+ * while the pool is saturated and task latency stays close to the best latency
+ * seen so far, and shrinks as soon as latency degrades.
+ */
+@Slf4j
+public class AdaptiveBulkhead implements Bulkhead {
+    // Lowest accepted gradient, limits how fast the pool shrinks per interval
+    private static final double MIN_GRADIENT = 0.5;
+    // Best latency slowly drifts up so that a one-off fast window does not pin it forever
+    private static final double NO_LOAD_LATENCY_DRIFT = 1.01;
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double intervalSeconds;
+
+    private final Scheduler scheduler;
+    private final Disposable adjuster;
+
+    // Statistics of the current interval
+    private final TaskMeter meter = new TaskMeter();
+    private final LongAdder intervalRejected = new LongAdder();
+    private final LongAdder totalRejected = new LongAdder();
+
+    // Best latency seen so far
+    private volatile double noLoadLatencyNanos;
+
+    public AdaptiveBulkhead(
+        String name,
+        ThreadPoolExecutor executor,
+        int minLimit,
+        int maxLimit,
+        Duration adjustInterval
+    ) {
+        this.name = name;
+        this.executor = executor;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.intervalSeconds = adjustInterval.toNanos() / 1e9;
+
+        this.scheduler = Schedulers.fromExecutor(this);
+        this.adjuster = Flux.interval(adjustInterval)
+            .subscribe(__ -> adjustLimit());
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        try {
+            executor.execute(meter.wrap(task));
+        } catch (RejectedExecutionException e) {
+            intervalRejected.increment();
+            totalRejected.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return executor.getMaximumPoolSize();
+    }
+
+    @Override
+    public BulkheadStatusDto toStatus() {
+        return new BulkheadStatusDto(
+            name,
+            executor.getMaximumPoolSize(),
+            executor.getActiveCount(),
+            executor.getQueue().size(),
+            executor.getQueue().size() + executor.getQueue().remainingCapacity(),
+            totalRejected.sum(),
+            meter.getLatencyNanos() / 1e6,
+            meter.getThroughput(),
+            meter.getConcurrency()
+        );
+    }
+
+    @Override
+    public void dispose() {
+        adjuster.dispose();
+        executor.shutdownNow();
+    }
+
+    void adjustLimit() {
+        long done = meter.sample(intervalSeconds);
+        long rejected = intervalRejected.sumThenReset();
+        if (done == 0) {
+            return;
+        }
+
+        double latency = meter.getLatencyNanos();
+        noLoadLatencyNanos = noLoadLatencyNanos == 0 ?
+            latency :
+            Math.min(latency, noLoadLatencyNanos * NO_LOAD_LATENCY_DRIFT);
+
+        int limit = getLimit();
+        boolean saturated = rejected > 0
+            || executor.getQueue().size() > 0
+            || executor.getActiveCount() >= limit;
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, noLoadLatencyNanos / latency));
+        double headroom = saturated ? Math.max(1.0, Math.sqrt(limit)) : 0.0;
+        int newLimit = (int) Math.max(minLimit, Math.min(maxLimit, Math.round(limit * gradient + headroom)));
+
+        if (newLimit != limit) {
+            log.debug("[{}] limit {} -> {}, latency: {} ms, throughput: {}/s",
+                name, limit, newLimit, latency / 1e6, meter.getThroughput());
+            resize(newLimit);
+        }
+    }
+
+    private void resize(int limit) {
+        // Core size may never exceed max size, so the order depends on direction
+        if (limit > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(limit);
+            executor.setCorePoolSize(limit);
+        } else {
+            executor.setCorePoolSize(limit);
+            executor.setMaximumPoolSize(limit);
+        }
+    }
+}
@@ -1,24 +1,80 @@
 package org.coinen.reactive.persistence.utils;
 
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public final class AppSchedulers {
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 30;
+
     private AppSchedulers() { }
 
-    public static ThreadPoolExecutor newExecutor(String prefix, int nThreads) {
-        return (ThreadPoolExecutor) Executors.newFixedThreadPool(nThreads, new ThreadFactory() {
-                private final AtomicInteger id = new AtomicInteger(0);
-
-                @Override
-                public Thread newThread(Runnable r) {
-                    var thread = new Thread(r);
-                    thread.setName(prefix + "-" + id.incrementAndGet());
-                    thread.setDaemon(true);
-                    return thread;
-                }
-            });
+    public static AdaptiveBulkhead newBulkhead(
+        String prefix,
+        int minThreads,
+        int maxThreads,
+        int queueCapacity,
+        Duration adjustInterval
+    ) {
+        return new AdaptiveBulkhead(
+            prefix,
+            newExecutor(prefix, minThreads, queueCapacity),
+            minThreads,
+            maxThreads,
+            adjustInterval);
+    }
+
+    public static VirtualThreadBulkhead newVirtualThreadBulkhead(String prefix, Duration sampleInterval) {
+        return new VirtualThreadBulkhead(prefix, newVirtualThreadPerTaskExecutor(prefix), sampleInterval);
+    }
+
+    public static ThreadPoolExecutor newExecutor(String prefix, int nThreads, int queueCapacity) {
+        var executor = new ThreadPoolExecutor(
+            nThreads,
+            nThreads,
+            IDLE_THREAD_KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            newThreadFactory(prefix),
+            new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ThreadFactory newThreadFactory(String prefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger id = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                var thread = new Thread(r);
+                thread.setName(prefix + "-" + id.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    // Classes are compiled for Java 11 (Spring's class scanning can not read newer
+    // class files), so the Java 21 virtual thread API is looked up reflectively.
+    private static ExecutorService newVirtualThreadPerTaskExecutor(String prefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class)
+                .invoke(builder, prefix + "-", 1L);
+            var factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class
+                .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(
+                "Virtual threads are not available on Java " + Runtime.version().feature(), e);
+        }
     }
 }
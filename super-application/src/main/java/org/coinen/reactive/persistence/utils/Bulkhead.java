@@ -0,0 +1,20 @@
+package org.coinen.reactive.persistence.utils;
+
+import org.coinen.reactive.persistence.model.BulkheadStatusDto;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executor dedicated to one blocking downstream.
+ */
+public interface Bulkhead extends Executor {
+
+    String getName();
+
+    Scheduler scheduler();
+
+    BulkheadStatusDto toStatus();
+
+    void dispose();
+}
@@ -0,0 +1,198 @@
+package org.coinen.reactive.persistence.utils;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.coinen.reactive.persistence.model.CircuitBreakerStatusDto;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker in front of one backend.
+ *
+ * While closed, outcomes of the last calls are kept in a ring; the circuit opens
+ * when the failure rate or the slow call rate reaches its threshold. An open
+ * circuit fails calls right away with {@link CallNotPermittedException}, after
+ * the open duration a few probe calls decide whether it closes or opens again.
+ */
+@Slf4j
+public class CircuitBreaker {
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    // Outcome bits of a window slot
+    private static final int RECORDED = 1;
+    private static final int FAILED = 2;
+    private static final int SLOW = 4;
+
+    private final String name;
+    private final CircuitBreakerSettings settings;
+    private final long slowCallNanos;
+    private final long openNanos;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private volatile long openedAt;
+
+    // Sliding window over the last calls while closed
+    private final AtomicIntegerArray window;
+    private final AtomicLong position = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger slowCalls = new AtomicInteger();
+
+    // Probe calls while half-open
+    private final AtomicInteger probesLeft = new AtomicInteger();
+    private final AtomicInteger probesSucceeded = new AtomicInteger();
+
+    private final LongAdder notPermitted = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+
+    public CircuitBreaker(String name, CircuitBreakerSettings settings) {
+        this.name = name;
+        this.settings = settings;
+        this.slowCallNanos = settings.getSlowCallDuration().toNanos();
+        this.openNanos = settings.getOpenDuration().toNanos();
+        this.window = new AtomicIntegerArray(settings.getWindowSize());
+    }
+
+    public <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                notPermitted.increment();
+                return Mono.error(new CallNotPermittedException(name));
+            }
+            long start = System.nanoTime();
+            return call
+                .timeout(settings.getCallTimeout())
+                .doOnSuccess(__ -> onResult(start, false))
+                .doOnError(e -> onResult(start, true))
+                .doOnCancel(this::onCancel);
+        });
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public CircuitBreakerStatusDto toStatus() {
+        int recorded = calls.get();
+        return new CircuitBreakerStatusDto(
+            name,
+            state.get().name().toLowerCase(),
+            recorded,
+            recorded == 0 ? 0 : (double) failures.get() / recorded,
+            recorded == 0 ? 0 : (double) slowCalls.get() / recorded,
+            notPermitted.sum(),
+            opened.sum()
+        );
+    }
+
+    void register(MeterRegistry registry) {
+        Gauge.builder("app.breaker.state", state, s -> s.get().ordinal())
+            .tag("name", name)
+            .register(registry);
+        FunctionCounter.builder("app.breaker.not.permitted", notPermitted, LongAdder::doubleValue)
+            .tag("name", name)
+            .register(registry);
+    }
+
+    // --- State transitions ---------------------------------------------------
+
+    private boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                log.info("[{} breaker] half-open, probing with {} calls", name, settings.getHalfOpenCalls());
+            }
+        }
+        return probesLeft.getAndDecrement() > 0;
+    }
+
+    private void onResult(long start, boolean failed) {
+        boolean slow = System.nanoTime() - start >= slowCallNanos;
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            if (failed || slow) {
+                open(State.HALF_OPEN);
+            } else if (probesSucceeded.incrementAndGet() >= settings.getHalfOpenCalls()) {
+                close();
+            }
+        } else if (current == State.CLOSED) {
+            record(failed, slow);
+            int recorded = calls.get();
+            if (recorded >= settings.getMinCalls() && (
+                failures.get() >= settings.getFailureRateThreshold() * recorded ||
+                slowCalls.get() >= settings.getSlowCallRateThreshold() * recorded)) {
+                open(State.CLOSED);
+            }
+        }
+    }
+
+    // Cancelled calls have no outcome, a cancelled probe is handed back
+    private void onCancel() {
+        if (state.get() == State.HALF_OPEN) {
+            probesLeft.incrementAndGet();
+        }
+    }
+
+    private void record(boolean failed, boolean slow) {
+        int outcome = RECORDED | (failed ? FAILED : 0) | (slow ? SLOW : 0);
+        int slot = (int) (position.getAndIncrement() % window.length());
+        int previous = window.getAndSet(slot, outcome);
+
+        if ((previous & RECORDED) == 0) {
+            calls.incrementAndGet();
+        }
+        failures.addAndGet(((outcome & FAILED) - (previous & FAILED)) / FAILED);
+        slowCalls.addAndGet(((outcome & SLOW) - (previous & SLOW)) / SLOW);
+    }
+
+    private void open(State from) {
+        openedAt = System.nanoTime();
+        if (state.compareAndSet(from, State.OPEN)) {
+            // Probes are only taken once the open duration is over
+            probesLeft.set(settings.getHalfOpenCalls());
+            probesSucceeded.set(0);
+            opened.increment();
+            log.warn("[{} breaker] open for {} ms, failure rate: {}, slow call rate: {}",
+                name, settings.getOpenDuration().toMillis(),
+                toStatus().getFailureRate(), toStatus().getSlowCallRate());
+        }
+    }
+
+    private void close() {
+        if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            for (int i = 0; i < window.length(); i++) {
+                window.set(i, 0);
+            }
+            calls.set(0);
+            failures.set(0);
+            slowCalls.set(0);
+            log.info("[{} breaker] closed", name);
+        }
+    }
+
+    /**
+     * Call was not made: the circuit is open or all probes are taken.
+     */
+    public static final class CallNotPermittedException extends RuntimeException {
+        public CallNotPermittedException(String name) {
+            super("Circuit breaker of '" + name + "' is open");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.coinen.reactive.persistence.utils;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class CircuitBreakerSettings {
+    // Rates are taken over the last windowSize calls, once there are at least minCalls
+    private final int windowSize;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final Duration slowCallDuration;
+    private final double slowCallRateThreshold;
+
+    // Calls slower than this fail, so that no caller waits for a driver timeout
+    private final Duration callTimeout;
+
+    // An open circuit lets probe calls through after the open duration
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+}
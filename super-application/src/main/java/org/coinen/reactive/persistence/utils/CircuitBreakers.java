@@ -0,0 +1,37 @@
+package org.coinen.reactive.persistence.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.coinen.reactive.persistence.model.CircuitBreakerStatusDto;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Circuit breakers by backend, registered with Micrometer on first use.
+ */
+public class CircuitBreakers {
+    private final MeterRegistry registry;
+    private final CircuitBreakerSettings settings;
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public CircuitBreakers(MeterRegistry registry, CircuitBreakerSettings settings) {
+        this.registry = registry;
+        this.settings = settings;
+    }
+
+    public CircuitBreaker breaker(String name) {
+        return breakers.computeIfAbsent(name, __ -> {
+            CircuitBreaker created = new CircuitBreaker(name, settings);
+            created.register(registry);
+            return created;
+        });
+    }
+
+    public List<CircuitBreakerStatusDto> toStatus() {
+        return breakers.values().stream()
+            .map(CircuitBreaker::toStatus)
+            .collect(Collectors.toList());
+    }
+}
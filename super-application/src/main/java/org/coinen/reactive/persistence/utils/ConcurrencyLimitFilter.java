@@ -0,0 +1,64 @@
+package org.coinen.reactive.persistence.utils;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Sheds load on /nio/service: every request holds a permit of its study's
+ * backend until the response is written, requests that get no permit in time
+ * are answered with 503 and Retry-After.
+ *
+ * Runs as a web filter rather than a handler filter, so that streamed
+ * responses keep their permit until the last element is written.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ConcurrencyLimitFilter implements WebFilter {
+    private static final PathPattern LIMITED_PATHS = new PathPatternParser().parse("/nio/service/{study}/**");
+
+    private final ConcurrencyLimiters limiters;
+    // Study to the backend that bounds its latency, null for unknown studies
+    private final Function<String, String> backendOf;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        PathPattern.PathMatchInfo match = limiters.isEnabled() ?
+            LIMITED_PATHS.matchAndExtract(exchange.getRequest().getPath().pathWithinApplication()) :
+            null;
+        if (match == null) {
+            return chain.filter(exchange);
+        }
+
+        String backend = backendOf.apply(match.getUriVariables().get("study"));
+        if (backend == null) {
+            // Rejected by the router right away
+            return chain.filter(exchange);
+        }
+
+        ConcurrencyLimiter limiter = limiters.limiter(backend);
+        return limiter.acquire()
+            .flatMap(permit -> chain.filter(exchange)
+                .doFinally(__ -> permit.release()))
+            .onErrorResume(ConcurrencyLimiter.LimitExceededException.class, e -> reject(exchange, limiter));
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, ConcurrencyLimiter limiter) {
+        log.debug("[{} limiter] rejected {}, limit: {}",
+            limiter.getName(), exchange.getRequest().getPath(), limiter.getLimit());
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(limiter.retryAfterSeconds()));
+        return response.setComplete();
+    }
+}
@@ -0,0 +1,20 @@
+package org.coinen.reactive.persistence.utils;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class ConcurrencyLimitSettings {
+    private final boolean enabled;
+
+    // In-flight limit per backend, learned from observed latency
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final Duration adjustInterval;
+
+    // Requests over the limit wait briefly for a permit, then get a 503
+    private final int queueSize;
+    private final Duration queueTimeout;
+}
@@ -0,0 +1,298 @@
+package org.coinen.reactive.persistence.utils;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.coinen.reactive.persistence.model.ConcurrencyLimitStatusDto;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of requests in flight to one backend.
+ *
+ * The limit follows the same gradient as {@link AdaptiveBulkhead}: it grows
+ * while the limit is reached and latency stays close to the best latency seen
+ * so far, and shrinks as soon as latency degrades. Requests over the limit wait
+ * in a short FIFO queue until the queue timeout, then are rejected.
+ */
+@Slf4j
+public class ConcurrencyLimiter {
+    // Lowest accepted gradient, limits how fast the limit shrinks per interval
+    private static final double MIN_GRADIENT = 0.5;
+    // Best latency slowly drifts up so that a one-off fast window does not pin it forever
+    private static final double NO_LOAD_LATENCY_DRIFT = 1.01;
+
+    private final String name;
+    private final ConcurrencyLimitSettings settings;
+    private final double intervalSeconds;
+    private final Disposable adjuster;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile int limit;
+
+    // Statistics of the current interval
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder intervalRejected = new LongAdder();
+    private final LongAccumulator peakInFlight = new LongAccumulator(Math::max, 0);
+
+    // Totals
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    // Results of the last interval
+    private volatile double latencyNanos;
+    private volatile double noLoadLatencyNanos;
+    private volatile double throughput;
+
+    public ConcurrencyLimiter(String name, ConcurrencyLimitSettings settings) {
+        this.name = name;
+        this.settings = settings;
+        this.limit = settings.getInitialLimit();
+        this.intervalSeconds = settings.getAdjustInterval().toNanos() / 1e9;
+        this.adjuster = Flux.interval(settings.getAdjustInterval())
+            .subscribe(__ -> adjustLimit());
+    }
+
+    /**
+     * Emits a permit once the request may proceed, or fails with
+     * {@link LimitExceededException} when the queue is full or the queue
+     * timeout expires first. The permit must be released exactly once.
+     */
+    public Mono<Permit> acquire() {
+        return Mono.create(sink -> {
+            if (tryAcquire()) {
+                sink.success(new Permit());
+                return;
+            }
+            if (queued.incrementAndGet() > settings.getQueueSize()) {
+                queued.decrementAndGet();
+                reject(sink);
+                return;
+            }
+            Waiter waiter = new Waiter(sink);
+            sink.onCancel(waiter::cancel);
+            waiters.offer(waiter);
+            waiter.deadline = Schedulers.parallel()
+                .schedule(waiter::expire, settings.getQueueTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            // A permit may have been released before the waiter was queued
+            drain();
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    // Roughly when a permit is expected to be free again
+    public long retryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(latencyNanos / 1e9));
+    }
+
+    public ConcurrencyLimitStatusDto toStatus() {
+        return new ConcurrencyLimitStatusDto(
+            name,
+            limit,
+            inFlight.get(),
+            queued.get(),
+            accepted.sum(),
+            rejected.sum(),
+            latencyNanos / 1e6,
+            noLoadLatencyNanos / 1e6,
+            throughput
+        );
+    }
+
+    void register(MeterRegistry registry) {
+        Gauge.builder("app.limiter.limit", this, ConcurrencyLimiter::getLimit)
+            .tag("name", name)
+            .register(registry);
+        Gauge.builder("app.limiter.in.flight", inFlight, AtomicInteger::get)
+            .tag("name", name)
+            .register(registry);
+        FunctionCounter.builder("app.limiter.rejected", rejected, LongAdder::doubleValue)
+            .tag("name", name)
+            .register(registry);
+    }
+
+    public void dispose() {
+        adjuster.dispose();
+    }
+
+    // --- Permits -------------------------------------------------------------
+
+    private boolean tryAcquire() {
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                peakInFlight.accumulate(current + 1);
+                accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    private void reject(MonoSink<Permit> sink) {
+        intervalRejected.increment();
+        rejected.increment();
+        sink.error(new LimitExceededException(name));
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            for (;;) {
+                Waiter waiter = waiters.peek();
+                if (waiter == null) {
+                    break;
+                }
+                if (waiter.done.get()) {
+                    waiters.poll();
+                    continue;
+                }
+                if (!tryAcquire()) {
+                    break;
+                }
+                waiters.poll();
+                if (waiter.done.compareAndSet(false, true)) {
+                    queued.decrementAndGet();
+                    waiter.deadline.dispose();
+                    waiter.deliver(new Permit());
+                } else {
+                    // Expired or cancelled in the meantime, give the slot back
+                    inFlight.decrementAndGet();
+                }
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    public final class Permit {
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                busyNanos.add(System.nanoTime() - start);
+                completed.increment();
+                inFlight.decrementAndGet();
+                drain();
+            }
+        }
+    }
+
+    private final class Waiter {
+        private final MonoSink<Permit> sink;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private final AtomicReference<Permit> handedOver = new AtomicReference<>();
+        private volatile boolean cancelled;
+        private volatile Disposable deadline = () -> { };
+
+        Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+
+        void deliver(Permit permit) {
+            handedOver.set(permit);
+            sink.success(permit);
+            // The sink drops the value when cancelled in the meantime
+            if (cancelled && handedOver.compareAndSet(permit, null)) {
+                permit.release();
+            }
+        }
+
+        void expire() {
+            if (done.compareAndSet(false, true)) {
+                queued.decrementAndGet();
+                waiters.remove(this);
+                reject(sink);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            if (done.compareAndSet(false, true)) {
+                queued.decrementAndGet();
+                deadline.dispose();
+                waiters.remove(this);
+                return;
+            }
+            Permit permit = handedOver.getAndSet(null);
+            if (permit != null) {
+                permit.release();
+            }
+        }
+    }
+
+    // --- Limit adjustment ----------------------------------------------------
+
+    void adjustLimit() {
+        long done = completed.sumThenReset();
+        long busy = busyNanos.sumThenReset();
+        long rejectedInInterval = intervalRejected.sumThenReset();
+        long peak = Math.max(peakInFlight.getThenReset(), inFlight.get());
+
+        throughput = done / intervalSeconds;
+        if (done == 0) {
+            return;
+        }
+
+        double latency = (double) busy / done;
+        latencyNanos = latency;
+        noLoadLatencyNanos = noLoadLatencyNanos == 0 ?
+            latency :
+            Math.min(latency, noLoadLatencyNanos * NO_LOAD_LATENCY_DRIFT);
+
+        int current = limit;
+        boolean saturated = rejectedInInterval > 0
+            || queued.get() > 0
+            || peak >= current;
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, noLoadLatencyNanos / latency));
+        double headroom = saturated ? Math.max(1.0, Math.sqrt(current)) : 0.0;
+        int newLimit = (int) Math.max(
+            settings.getMinLimit(),
+            Math.min(settings.getMaxLimit(), Math.round(current * gradient + headroom)));
+
+        if (newLimit != current) {
+            log.debug("[{} limiter] limit {} -> {}, latency: {} ms, throughput: {}/s, rejected: {}",
+                name, current, newLimit, latency / 1e6, throughput, rejectedInInterval);
+            limit = newLimit;
+            drain();
+        }
+    }
+
+    /**
+     * Request was shed: the limit was reached and no permit freed up in time.
+     */
+    public static final class LimitExceededException extends RejectedExecutionException {
+        public LimitExceededException(String name) {
+            super("Concurrency limit of '" + name + "' exceeded");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.coinen.reactive.persistence.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.coinen.reactive.persistence.model.ConcurrencyLimitStatusDto;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Concurrency limiters by backend, registered with Micrometer on first use.
+ */
+public class ConcurrencyLimiters {
+    private final MeterRegistry registry;
+    private final ConcurrencyLimitSettings settings;
+    private final ConcurrentMap<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimiters(MeterRegistry registry, ConcurrencyLimitSettings settings) {
+        this.registry = registry;
+        this.settings = settings;
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    // Names come from a fixed study to backend mapping, so they are not capped
+    public ConcurrencyLimiter limiter(String name) {
+        return limiters.computeIfAbsent(name, __ -> {
+            ConcurrencyLimiter created = new ConcurrencyLimiter(name, settings);
+            created.register(registry);
+            return created;
+        });
+    }
+
+    public List<ConcurrencyLimitStatusDto> toStatus() {
+        return limiters.values().stream()
+            .map(ConcurrencyLimiter::toStatus)
+            .collect(Collectors.toList());
+    }
+
+    public void dispose() {
+        limiters.values().forEach(ConcurrencyLimiter::dispose);
+    }
+}
@@ -0,0 +1,14 @@
+package org.coinen.reactive.persistence.utils;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class DiagnosticsSettings {
+    private final boolean enabled;
+    // Blocking calls on non-blocking threads throw instead of being counted
+    private final boolean failOnBlocking;
+    // Names of event loop and Reactor non-blocking threads start with one of these
+    private final List<String> nonBlockingThreadPrefixes;
+}
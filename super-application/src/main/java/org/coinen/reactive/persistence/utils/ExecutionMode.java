@@ -0,0 +1,8 @@
+package org.coinen.reactive.persistence.utils;
+
+public enum ExecutionMode {
+    // Adaptive pool of platform threads
+    PLATFORM,
+    // New virtual thread per task, requires Java 21+ at runtime
+    VIRTUAL
+}
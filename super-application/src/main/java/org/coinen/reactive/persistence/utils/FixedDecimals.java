@@ -0,0 +1,65 @@
+package org.coinen.reactive.persistence.utils;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Fixed-precision formatting of doubles without {@link java.util.Formatter}.
+ *
+ * Output is the same as {@code String.format("%3.1f", value)}, decimal
+ * separator of the default format locale included. Formatter rounds half up the
+ * shortest decimal that reads back as the double, not its exact value. Both
+ * only differ within a few ulps of a tie: the double closest to the tie is
+ * rounded up, the others are left to Formatter.
+ */
+public final class FixedDecimals {
+    // Above this, ties in tenths are no exact doubles any more
+    private static final double MAX_FAST = 1e14;
+    private static final Locale LOCALE = Locale.getDefault(Locale.Category.FORMAT);
+    private static final char SEPARATOR = DecimalFormatSymbols.getInstance(LOCALE).getDecimalSeparator();
+    // Locales with other digits than ASCII ones are formatted by Formatter
+    private static final boolean ASCII_DIGITS = DecimalFormatSymbols.getInstance(LOCALE).getZeroDigit() == '0';
+
+    private FixedDecimals() { }
+
+    /**
+     * @return value with one decimal, as {@code String.format("%3.1f", value)}
+     */
+    public static String oneDecimal(double value) {
+        double abs = Math.abs(value);
+        if (!ASCII_DIGITS || !(abs < MAX_FAST)) {
+            return String.format("%3.1f", value);
+        }
+
+        long whole = (long) abs;
+        // Exact, the whole part of a double is a double too
+        double fraction = abs - whole;
+        double scaled = fraction * 10;
+        int tenths = (int) scaled;
+        // The product is off by half an ulp at most, far less than the margin
+        double aboveTie = scaled - tenths - 0.5;
+        if (Math.abs(aboveTie) < 20 * Math.ulp(abs)) {
+            // The double closest to a tie reads back as the tie, which rounds up
+            if (abs != (whole * 10 + tenths + 0.5) / 10) {
+                return String.format("%3.1f", value);
+            }
+            tenths++;
+        } else if (aboveTie > 0) {
+            tenths++;
+        }
+        if (tenths == 10) {
+            tenths = 0;
+            whole++;
+        }
+
+        StringBuilder text = new StringBuilder(24);
+        // Formatter keeps the sign of negative values rounded to zero
+        if (Double.doubleToRawLongBits(value) < 0) {
+            text.append('-');
+        }
+        return text.append(whole)
+            .append(SEPARATOR)
+            .append((char) ('0' + tenths))
+            .toString();
+    }
+}
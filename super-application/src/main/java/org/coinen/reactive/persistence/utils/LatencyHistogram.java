@@ -0,0 +1,102 @@
+package org.coinen.reactive.persistence.utils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Allocation-free latency histogram over a sliding window.
+ *
+ * Values are kept in microseconds in log-linear buckets (four per power of
+ * two, so within ~12% of the recorded value). Two windows are kept: the
+ * current one and the previous one, percentiles are taken over both.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final long windowNanos;
+    private final AtomicLong windowEnd;
+
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS);
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKETS);
+
+    public LatencyHistogram(Duration window) {
+        this.windowNanos = window.toNanos();
+        this.windowEnd = new AtomicLong(System.nanoTime() + windowNanos);
+    }
+
+    public void record(long nanos) {
+        rotateIfNeeded();
+        current.incrementAndGet(bucket(Math.max(0, nanos / 1000)));
+    }
+
+    /**
+     * @return latency in nanoseconds at the given quantile (0..1), 0 when empty
+     */
+    public long percentile(double quantile) {
+        AtomicLongArray now = current;
+        AtomicLongArray before = previous;
+
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += now.get(i) + before.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += now.get(i) + before.get(i);
+            if (seen >= rank) {
+                return upperBound(i) * 1000;
+            }
+        }
+        return upperBound(BUCKETS - 1) * 1000;
+    }
+
+    public long count() {
+        AtomicLongArray now = current;
+        AtomicLongArray before = previous;
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += now.get(i) + before.get(i);
+        }
+        return total;
+    }
+
+    private void rotateIfNeeded() {
+        long end = windowEnd.get();
+        long now = System.nanoTime();
+        if (now - end >= 0 && windowEnd.compareAndSet(end, now + windowNanos)) {
+            AtomicLongArray recycled = previous;
+            for (int i = 0; i < BUCKETS; i++) {
+                recycled.set(i, 0);
+            }
+            previous = current;
+            current = recycled;
+        }
+    }
+
+    static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+}
@@ -0,0 +1,114 @@
+package org.coinen.reactive.persistence.utils;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import org.coinen.reactive.persistence.model.LatencyStatusDto;
+import reactor.core.publisher.Mono;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, outcome and in-flight count of one kind of call (a study request,
+ * a backend lookup, ...).
+ *
+ * Recording allocates nothing: latencies go to a {@link LatencyHistogram},
+ * counts to adders. Percentiles cover the last one to two histogram windows.
+ */
+public class LatencyMeter {
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final LatencyMeters.Kind kind;
+    private final String name;
+    private final LatencyHistogram histogram;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    LatencyMeter(LatencyMeters.Kind kind, String name, Duration window) {
+        this.kind = kind;
+        this.name = name;
+        this.histogram = new LatencyHistogram(window);
+    }
+
+    /**
+     * @return start time to pass to {@link #success}, {@link #error} or {@link #cancel}
+     */
+    public long start() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void success(long start) {
+        complete(start);
+    }
+
+    public void error(long start, Throwable error) {
+        complete(start);
+        if (error instanceof TimeoutException || error instanceof HttpTimeoutException) {
+            timeouts.increment();
+        } else {
+            errors.increment();
+        }
+    }
+
+    // Cancelled calls have no meaningful latency
+    public void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    public <T> Mono<T> time(Mono<T> source) {
+        return new MeteredMono<>(source, this);
+    }
+
+    public LatencyStatusDto toStatus() {
+        return new LatencyStatusDto(
+            kind.name().toLowerCase(),
+            name,
+            count.sum(),
+            inFlight.get(),
+            histogram.percentile(0.5) / 1e6,
+            histogram.percentile(0.99) / 1e6,
+            histogram.percentile(0.999) / 1e6,
+            errors.sum(),
+            timeouts.sum()
+        );
+    }
+
+    void register(MeterRegistry registry) {
+        Tags tags = Tags.of("kind", kind.name().toLowerCase(), "name", name);
+        FunctionCounter.builder("app.calls", count, LongAdder::doubleValue)
+            .tags(tags)
+            .register(registry);
+        FunctionCounter.builder("app.calls.errors", errors, LongAdder::doubleValue)
+            .tags(tags)
+            .register(registry);
+        FunctionCounter.builder("app.calls.timeouts", timeouts, LongAdder::doubleValue)
+            .tags(tags)
+            .register(registry);
+        Gauge.builder("app.calls.in.flight", inFlight, AtomicInteger::get)
+            .tags(tags)
+            .register(registry);
+        for (double percentile : PERCENTILES) {
+            TimeGauge.builder("app.calls.latency", histogram, TimeUnit.NANOSECONDS, h -> h.percentile(percentile))
+                .tags(tags)
+                .tag("percentile", String.valueOf(percentile))
+                .register(registry);
+        }
+    }
+
+    private void complete(long start) {
+        histogram.record(System.nanoTime() - start);
+        count.increment();
+        inFlight.decrementAndGet();
+    }
+}
@@ -0,0 +1,62 @@
+package org.coinen.reactive.persistence.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.coinen.reactive.persistence.model.LatencyStatusDto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Latency meters by kind & name, registered with Micrometer on first use.
+ */
+public class LatencyMeters {
+    public enum Kind {
+        // Whole /service requests per study
+        BLOCKING,
+        // Whole /nio/service requests per study
+        REACTIVE,
+        // Calls to one database or to the external service
+        BACKEND
+    }
+
+    // Names of request meters come from the URL, so their number is capped
+    private static final int MAX_METERS_PER_KIND = 64;
+    private static final String OTHER = "other";
+
+    private final MeterRegistry registry;
+    private final Duration window;
+    private final Map<Kind, ConcurrentMap<String, LatencyMeter>> meters = new EnumMap<>(Kind.class);
+
+    public LatencyMeters(MeterRegistry registry, Duration window) {
+        this.registry = registry;
+        this.window = window;
+        for (Kind kind : Kind.values()) {
+            meters.put(kind, new ConcurrentHashMap<>());
+        }
+    }
+
+    public LatencyMeter meter(Kind kind, String name) {
+        ConcurrentMap<String, LatencyMeter> byName = meters.get(kind);
+        LatencyMeter meter = byName.get(name);
+        if (meter != null) {
+            return meter;
+        }
+        String key = byName.size() < MAX_METERS_PER_KIND ? name : OTHER;
+        return byName.computeIfAbsent(key, __ -> {
+            LatencyMeter created = new LatencyMeter(kind, key, window);
+            created.register(registry);
+            return created;
+        });
+    }
+
+    public List<LatencyStatusDto> toStatus() {
+        List<LatencyStatusDto> statuses = new ArrayList<>();
+        meters.values().forEach(byName -> byName.values().forEach(meter -> statuses.add(meter.toStatus())));
+        return statuses;
+    }
+}
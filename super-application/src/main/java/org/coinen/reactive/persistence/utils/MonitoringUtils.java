@@ -1,24 +1,55 @@
 package org.coinen.reactive.persistence.utils;
 
+import org.coinen.reactive.persistence.db.R2dbcConnectionPool;
 import org.coinen.reactive.persistence.external.ExternalServiceMetricsDto;
 import org.coinen.reactive.persistence.model.AppStatusDto;
+import org.coinen.reactive.persistence.model.BulkheadStatusDto;
+import org.coinen.reactive.persistence.model.CircuitBreakerStatusDto;
+import org.coinen.reactive.persistence.model.DiagnosticsStatusDto;
+import org.coinen.reactive.persistence.model.HedgingStatusDto;
 
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.ArrayList;
+import java.util.List;
 
 public final class MonitoringUtils {
     private MonitoringUtils() { }
 
     public static AppStatusDto toAppStatus(
-        ThreadPoolExecutor executor,
+        List<Bulkhead> bulkheads,
+        R2dbcConnectionPool r2dbcConnectionPool,
+        HedgingStatusDto hedgingStatus,
+        LatencyMeters latencyMeters,
+        ConcurrencyLimiters concurrencyLimiters,
+        List<CircuitBreakerStatusDto> circuitBreakers,
+        DiagnosticsStatusDto diagnostics,
         int activeRequests,
         ExternalServiceMetricsDto externalStatus
     ) {
+        List<BulkheadStatusDto> bulkheadStatuses = new ArrayList<>(bulkheads.size());
+        int poolSize = 0;
+        int poolUsed = 0;
+        int poolQueueSize = 0;
+        for (Bulkhead bulkhead : bulkheads) {
+            BulkheadStatusDto status = bulkhead.toStatus();
+            bulkheadStatuses.add(status);
+            poolSize += status.getLimit();
+            poolUsed += status.getActive();
+            poolQueueSize += status.getQueued();
+        }
+
         return new AppStatusDto(
-            executor.getMaximumPoolSize(),
-            executor.getActiveCount(),
-            executor.getQueue().size(),
+            poolSize,
+            poolUsed,
+            poolQueueSize,
             activeRequests,
-            externalStatus.getActiveRequests()
+            externalStatus.getActiveRequests(),
+            bulkheadStatuses,
+            r2dbcConnectionPool.toStatus(),
+            hedgingStatus,
+            latencyMeters.toStatus(),
+            concurrencyLimiters.toStatus(),
+            circuitBreakers,
+            diagnostics
         );
     }
 }
@@ -0,0 +1,319 @@
+package org.coinen.reactive.persistence.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.coinen.reactive.persistence.model.DiagnosticsStatusDto;
+import org.coinen.reactive.persistence.model.RequestTraceStatusDto;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.Scannable;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Opt-in instrumentation of the request path, reported on /status.
+ *
+ * Blocking calls (JDBC, the JDK http client, {@code block()}) check the thread
+ * they run on: on an event loop or a Reactor non-blocking thread they are
+ * counted and logged, or fail when {@code failOnBlocking} is set. BlockHound
+ * would find them without explicit checks, but it needs a Java agent and
+ * Reactor 3.3.
+ *
+ * Traced requests count the thread hops between the signals of their
+ * operators, and the time their tasks waited in bulkhead queues. Every
+ * operator is wrapped while this is enabled, so it is off by default.
+ */
+@Slf4j
+public class ReactiveDiagnostics {
+    private static final String HOOK_KEY = "reactiveDiagnostics";
+    private static final ThreadLocal<QueuedTask> RUNNING_TASK = new ThreadLocal<>();
+
+    // Instrumentation is global, like the Reactor hook it is based on
+    private static volatile ReactiveDiagnostics active;
+
+    private final DiagnosticsSettings settings;
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, Counter> blockingCalls = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TraceMeters> traces = new ConcurrentHashMap<>();
+
+    public ReactiveDiagnostics(DiagnosticsSettings settings, MeterRegistry registry) {
+        this.settings = settings;
+        this.registry = registry;
+    }
+
+    public void start() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        Hooks.onEachOperator(HOOK_KEY, Operators.<Object, Object>lift(ReactiveDiagnostics::traceSubscriber));
+        active = this;
+        log.info("Reactive diagnostics are enabled, blocking calls on threads {} are {}",
+            settings.getNonBlockingThreadPrefixes(), settings.isFailOnBlocking() ? "errors" : "counted");
+    }
+
+    public void dispose() {
+        if (active == this) {
+            Hooks.resetOnEachOperator(HOOK_KEY);
+            active = null;
+        }
+    }
+
+    /**
+     * Counts thread hops and queue wait of every subscription to the request.
+     */
+    public <T> Mono<T> trace(LatencyMeters.Kind kind, String name, Mono<T> request) {
+        if (!settings.isEnabled()) {
+            return request;
+        }
+        TraceMeters meters = traces.computeIfAbsent(kind + "/" + name, __ -> new TraceMeters(kind, name, registry));
+        return Mono.defer(() -> {
+            RequestTrace trace = new RequestTrace();
+            // Recorded before the result is passed on, so it is seen by the caller
+            return request
+                .doOnTerminate(() -> meters.record(trace))
+                .doOnCancel(() -> meters.record(trace))
+                .subscriberContext(Context.of(RequestTrace.class, trace));
+        });
+    }
+
+    public DiagnosticsStatusDto toStatus() {
+        Map<String, Long> blocking = new TreeMap<>();
+        blockingCalls.forEach((operation, counter) -> blocking.put(operation, (long) counter.count()));
+        List<RequestTraceStatusDto> requests = new ArrayList<>(traces.size());
+        traces.values().forEach(meters -> requests.add(meters.toStatus()));
+        return new DiagnosticsStatusDto(settings.isEnabled(), blocking, requests);
+    }
+
+    /**
+     * Marks a blocking call, a no-op unless diagnostics are enabled.
+     *
+     * @throws IllegalStateException on a non-blocking thread, if configured so
+     */
+    public static void checkBlocking(String operation) {
+        ReactiveDiagnostics diagnostics = active;
+        if (diagnostics != null) {
+            diagnostics.onBlockingCall(operation, Thread.currentThread());
+        }
+    }
+
+    /**
+     * @return the call, checked with {@link #checkBlocking} before it runs
+     */
+    public static <T> Callable<T> blocking(String operation, Callable<T> call) {
+        return () -> {
+            checkBlocking(operation);
+            return call.call();
+        };
+    }
+
+    // Bulkhead tasks record how long they were queued, for the request that runs on them
+    static Runnable trackQueueWait(Runnable task) {
+        if (active == null) {
+            return task;
+        }
+        long submitted = System.nanoTime();
+        return () -> {
+            RUNNING_TASK.set(new QueuedTask(System.nanoTime() - submitted));
+            try {
+                task.run();
+            } finally {
+                RUNNING_TASK.remove();
+            }
+        };
+    }
+
+    private void onBlockingCall(String operation, Thread thread) {
+        if (!isNonBlocking(thread)) {
+            return;
+        }
+        String message = "Blocking call (" + operation + ") on non-blocking thread " + thread.getName();
+        Counter counter = blockingCalls.get(operation);
+        if (counter == null) {
+            // The first call of an operation is logged with its stack, the rest only counted
+            log.warn(message, new Throwable("Blocking call site"));
+            counter = blockingCalls.computeIfAbsent(operation, __ -> Counter.builder("app.diagnostics.blocking.calls")
+                .description("Blocking calls on non-blocking threads")
+                .tag("operation", operation)
+                .register(registry));
+        }
+        counter.increment();
+        if (settings.isFailOnBlocking()) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    private boolean isNonBlocking(Thread thread) {
+        String name = thread.getName();
+        for (String prefix : settings.getNonBlockingThreadPrefixes()) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static CoreSubscriber<? super Object> traceSubscriber(Scannable operator, CoreSubscriber<? super Object> subscriber) {
+        RequestTrace trace = subscriber.currentContext().getOrDefault(RequestTrace.class, null);
+        if (trace == null) {
+            return subscriber;
+        }
+        return new TracingSubscriber<>(subscriber, trace);
+    }
+
+    static final class RequestTrace {
+        private final AtomicReference<Thread> lastThread = new AtomicReference<>();
+        private final AtomicInteger threadHops = new AtomicInteger();
+        private final AtomicLong queueWaitNanos = new AtomicLong();
+
+        // Called on every signal of a traced operator
+        void observe() {
+            Thread current = Thread.currentThread();
+            if (lastThread.get() != current) {
+                Thread previous = lastThread.getAndSet(current);
+                if (previous != null && previous != current) {
+                    threadHops.incrementAndGet();
+                }
+            }
+            QueuedTask task = RUNNING_TASK.get();
+            if (task != null && task.claim()) {
+                queueWaitNanos.addAndGet(task.waitNanos);
+            }
+        }
+
+        int getThreadHops() {
+            return threadHops.get();
+        }
+
+        long getQueueWaitNanos() {
+            return queueWaitNanos.get();
+        }
+    }
+
+    private static final class QueuedTask {
+        private final long waitNanos;
+        // Only read and written by the thread running the task
+        private boolean claimed;
+
+        QueuedTask(long waitNanos) {
+            this.waitNanos = waitNanos;
+        }
+
+        // The wait is accounted to the first traced request seen on the task
+        boolean claim() {
+            if (claimed) {
+                return false;
+            }
+            claimed = true;
+            return true;
+        }
+    }
+
+    private static final class TraceMeters {
+        private final LatencyMeters.Kind kind;
+        private final String name;
+        private final DistributionSummary threadHops;
+        private final Timer queueWait;
+
+        TraceMeters(LatencyMeters.Kind kind, String name, MeterRegistry registry) {
+            this.kind = kind;
+            this.name = name;
+            this.threadHops = DistributionSummary.builder("app.diagnostics.thread.hops")
+                .description("Thread hops per request")
+                .tag("kind", kind.name().toLowerCase())
+                .tag("name", name)
+                .register(registry);
+            this.queueWait = Timer.builder("app.diagnostics.queue.wait")
+                .description("Time per request spent in bulkhead queues")
+                .tag("kind", kind.name().toLowerCase())
+                .tag("name", name)
+                .register(registry);
+        }
+
+        void record(RequestTrace trace) {
+            threadHops.record(trace.getThreadHops());
+            queueWait.record(trace.getQueueWaitNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        RequestTraceStatusDto toStatus() {
+            return new RequestTraceStatusDto(
+                kind.name().toLowerCase(),
+                name,
+                threadHops.count(),
+                threadHops.mean(),
+                threadHops.max(),
+                queueWait.mean(TimeUnit.MILLISECONDS),
+                queueWait.max(TimeUnit.MILLISECONDS)
+            );
+        }
+    }
+
+    static final class TracingSubscriber<T> implements CoreSubscriber<T>, Subscription {
+        private final CoreSubscriber<? super T> actual;
+        private final RequestTrace trace;
+
+        private Subscription subscription;
+
+        TracingSubscriber(CoreSubscriber<? super T> actual, RequestTrace trace) {
+            this.actual = actual;
+            this.trace = trace;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+            trace.observe();
+            actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T value) {
+            trace.observe();
+            actual.onNext(value);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            trace.observe();
+            actual.onError(error);
+        }
+
+        @Override
+        public void onComplete() {
+            trace.observe();
+            actual.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            trace.observe();
+            subscription.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            subscription.cancel();
+        }
+
+        @Override
+        public Context currentContext() {
+            return actual.currentContext();
+        }
+    }
+}
@@ -1,15 +1,81 @@
 package org.coinen.reactive.persistence.utils;
 
+import org.coinen.reactive.persistence.Studies;
+import org.coinen.reactive.persistence.model.StudyBatchRequestDto;
 import org.coinen.reactive.persistence.model.StudyRequestDto;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public final class SerializationUtils {
+    private static final ParameterizedTypeReference<List<String>> REGION_LIST =
+        new ParameterizedTypeReference<List<String>>() { };
+
     private SerializationUtils() { }
 
+    /**
+     * @throws ResponseStatusException 404 for unknown studies
+     */
     public static StudyRequestDto parseRequest(ServerRequest request) {
-        String study = request.pathVariable("study");
+        Studies study = parseStudy(request);
         String region = request.pathVariable("region");
         String timeout = request.queryParam("timeout").orElse(null);
         return new StudyRequestDto(study, region, timeout);
     }
+
+    /**
+     * Regions come either as a JSON array in the POST body or as a
+     * comma-separated {@code regions} query param. Duplicates are dropped.
+     *
+     * @return error 404 for unknown studies, 400 for more than {@code maxRegions} regions
+     */
+    public static Mono<StudyBatchRequestDto> parseBatchRequest(ServerRequest request, int maxRegions) {
+        String timeout = request.queryParam("timeout").orElse(null);
+        return Mono.fromSupplier(() -> parseStudy(request))
+            .flatMap(study -> parseRegions(request)
+                .<StudyBatchRequestDto>handle((regions, sink) -> {
+                    if (regions.size() > maxRegions) {
+                        sink.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "At most " + maxRegions + " regions per request, got " + regions.size()));
+                    } else {
+                        sink.next(new StudyBatchRequestDto(study, regions, timeout));
+                    }
+                }));
+    }
+
+    public static Studies parseStudy(ServerRequest request) {
+        Studies study = Studies.byName(request.pathVariable("study"));
+        if (study == null) {
+            throw unknownStudy(request);
+        }
+        return study;
+    }
+
+    private static Mono<List<String>> parseRegions(ServerRequest request) {
+        Mono<List<String>> regions = request.method() == HttpMethod.POST ?
+            request.bodyToMono(REGION_LIST) :
+            Mono.justOrEmpty(request.queryParam("regions")).map(value -> Arrays.asList(value.split(",")));
+        return regions
+            .defaultIfEmpty(List.of())
+            .map(SerializationUtils::distinctRegions);
+    }
+
+    private static ResponseStatusException unknownStudy(ServerRequest request) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown study '" + request.pathVariable("study") + "'");
+    }
+
+    private static List<String> distinctRegions(List<String> regions) {
+        return regions.stream()
+            .map(String::trim)
+            .filter(region -> !region.isEmpty())
+            .distinct()
+            .collect(Collectors.toList());
+    }
 }
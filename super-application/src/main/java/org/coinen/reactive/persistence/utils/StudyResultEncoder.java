@@ -0,0 +1,192 @@
+package org.coinen.reactive.persistence.utils;
+
+import org.coinen.reactive.persistence.model.StudyResultDto;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JSON encoder of {@link StudyResultDto}, writes the same document as Jackson
+ * straight into a buffer of the response's factory.
+ *
+ * External values change from request to request, persisted ones repeat as
+ * long as the region's row does. So only the persisted part is memoized: the
+ * encoded pin value. The memo is read on every response without a lock and is
+ * simply cleared once full, the values still in use are encoded again.
+ */
+public class StudyResultEncoder implements Encoder<StudyResultDto> {
+    // Upper bound for memoized pin values, regions times the values each one takes over time
+    private static final int MAX_MEMOIZED_PIN_VALUES = 10_000;
+
+    private static final byte[] COLOR_SCHEMA = bytes("{\"colorSchema\":");
+    private static final byte[] COLOR_VALUE = bytes(",\"colorValue\":");
+    private static final byte[] NULL = bytes("null");
+    private static final byte[] NULL_PIN_VALUE = bytes(",\"pinValue\":null}");
+    private static final byte[] ARRAY_START = bytes("[");
+    private static final byte[] ARRAY_SEPARATOR = bytes(",");
+    private static final byte[] ARRAY_END = bytes("]");
+
+    private static final List<MimeType> MIME_TYPES = List.of(MediaType.APPLICATION_JSON);
+
+    // Pin value to its encoded ",\"pinValue\":...}" tail of the document
+    private final Map<String, byte[]> pinValues = new ConcurrentHashMap<>();
+    private final int maxMemoizedPinValues;
+
+    public StudyResultEncoder() {
+        this(MAX_MEMOIZED_PIN_VALUES);
+    }
+
+    StudyResultEncoder(int maxMemoizedPinValues) {
+        this.maxMemoizedPinValues = maxMemoizedPinValues;
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return StudyResultDto.class.isAssignableFrom(elementType.resolve(Object.class)) &&
+            (mimeType == null || MediaType.APPLICATION_JSON.isCompatibleWith(mimeType));
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(
+        Publisher<? extends StudyResultDto> inputStream,
+        DataBufferFactory bufferFactory,
+        ResolvableType elementType,
+        MimeType mimeType,
+        Map<String, Object> hints
+    ) {
+        if (inputStream instanceof Mono) {
+            return Mono.from(inputStream)
+                .map(result -> encode(result, bufferFactory))
+                .flux();
+        }
+        // Several results are a JSON array, as Jackson writes them
+        return Flux.concat(
+            Mono.fromSupplier(() -> bufferFactory.wrap(ARRAY_START)),
+            Flux.from(inputStream)
+                .index()
+                .concatMap(indexed -> indexed.getT1() == 0 ?
+                    Mono.just(encode(indexed.getT2(), bufferFactory)) :
+                    Flux.just(bufferFactory.wrap(ARRAY_SEPARATOR), encode(indexed.getT2(), bufferFactory))),
+            Mono.fromSupplier(() -> bufferFactory.wrap(ARRAY_END)));
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return MIME_TYPES;
+    }
+
+    public DataBuffer encode(StudyResultDto result, DataBufferFactory bufferFactory) {
+        byte[] pinValue = pinValue(result.getPinValue());
+        DataBuffer buffer = bufferFactory.allocateBuffer(64 + pinValue.length);
+        buffer.write(COLOR_SCHEMA);
+        writeString(result.getColorSchema(), buffer);
+        buffer.write(COLOR_VALUE);
+        writeNumber(result.getColorValue(), buffer);
+        buffer.write(pinValue);
+        return buffer;
+    }
+
+    boolean isMemoized(String pinValue) {
+        return pinValues.containsKey(pinValue);
+    }
+
+    private byte[] pinValue(String value) {
+        if (value == null) {
+            return NULL_PIN_VALUE;
+        }
+        byte[] memoized = pinValues.get(value);
+        if (memoized == null) {
+            memoized = (",\"pinValue\":\"" + (needsEscaping(value) ? escape(value) : value) + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+            // Racing clears and puts may overshoot the bound a little, never grow it unbounded
+            if (pinValues.size() >= maxMemoizedPinValues) {
+                pinValues.clear();
+            }
+            pinValues.put(value, memoized);
+        }
+        return memoized;
+    }
+
+    // Jackson writes NaN and infinities as strings
+    private static void writeNumber(Double value, DataBuffer buffer) {
+        if (value == null) {
+            buffer.write(NULL);
+        } else if (Double.isFinite(value)) {
+            buffer.write(Double.toString(value), StandardCharsets.US_ASCII);
+        } else {
+            writeString(Double.toString(value), buffer);
+        }
+    }
+
+    private static void writeString(String value, DataBuffer buffer) {
+        if (value == null) {
+            buffer.write(NULL);
+            return;
+        }
+        buffer.write((byte) '"');
+        buffer.write(needsEscaping(value) ? escape(value) : value, StandardCharsets.UTF_8);
+        buffer.write((byte) '"');
+    }
+
+    private static boolean needsEscaping(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c == '"' || c == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    escaped.append("\\\"");
+                    break;
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                case '\b':
+                    escaped.append("\\b");
+                    break;
+                case '\f':
+                    escaped.append("\\f");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04X", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,56 @@
+package org.coinen.reactive.persistence.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures run time of executed tasks, sampled once per interval.
+ */
+final class TaskMeter {
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+
+    // Results of the last sample
+    private volatile double latencyNanos;
+    private volatile double throughput;
+
+    Runnable wrap(Runnable task) {
+        Runnable tracked = ReactiveDiagnostics.trackQueueWait(task);
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                tracked.run();
+            } finally {
+                busyNanos.add(System.nanoTime() - start);
+                completed.increment();
+            }
+        };
+    }
+
+    /**
+     * Closes the current interval and returns the number of tasks completed in it.
+     * Latency is kept from the previous interval when nothing completed.
+     */
+    long sample(double intervalSeconds) {
+        long done = completed.sumThenReset();
+        long busy = busyNanos.sumThenReset();
+
+        throughput = done / intervalSeconds;
+        if (done > 0) {
+            latencyNanos = (double) busy / done;
+        }
+        return done;
+    }
+
+    double getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    double getThroughput() {
+        return throughput;
+    }
+
+    // Little's law: average number of tasks running at the same time
+    double getConcurrency() {
+        return throughput * latencyNanos / 1e9;
+    }
+}
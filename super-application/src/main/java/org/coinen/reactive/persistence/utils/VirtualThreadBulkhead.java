@@ -0,0 +1,83 @@
+package org.coinen.reactive.persistence.utils;
+
+import org.coinen.reactive.persistence.model.BulkheadStatusDto;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every task on its own virtual thread, so there is no pool to size and
+ * nothing is queued. The peak number of concurrently running tasks is reported
+ * as the limit.
+ */
+public class VirtualThreadBulkhead implements Bulkhead {
+    private final String name;
+    private final ExecutorService executor;
+    private final double intervalSeconds;
+
+    private final Scheduler scheduler;
+    private final Disposable sampler;
+
+    private final TaskMeter meter = new TaskMeter();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+
+    public VirtualThreadBulkhead(String name, ExecutorService executor, Duration sampleInterval) {
+        this.name = name;
+        this.executor = executor;
+        this.intervalSeconds = sampleInterval.toNanos() / 1e9;
+
+        this.scheduler = Schedulers.fromExecutor(this);
+        this.sampler = Flux.interval(sampleInterval)
+            .subscribe(__ -> meter.sample(intervalSeconds));
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        Runnable measured = meter.wrap(task);
+        executor.execute(() -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                measured.run();
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public BulkheadStatusDto toStatus() {
+        return new BulkheadStatusDto(
+            name,
+            peak.get(),
+            active.get(),
+            0,
+            0,
+            0,
+            meter.getLatencyNanos() / 1e6,
+            meter.getThroughput(),
+            meter.getConcurrency()
+        );
+    }
+
+    @Override
+    public void dispose() {
+        sampler.dispose();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,124 @@
+package org.coinen.reactive.persistence;
+
+import org.coinen.reactive.persistence.external.ExternalService;
+import org.coinen.reactive.persistence.model.StudyBatchRequestDto;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * GET & POST /nio/service/{study} of a study without persisted data, the
+ * external service answers every region but "atlantis" with its length.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "external.batch.max-regions=3")
+@AutoConfigureWebTestClient
+@ActiveProfiles("local")
+public class BatchEndpointTest {
+    @Autowired
+    private WebTestClient client;
+
+    @MockBean
+    private ExternalService externalService;
+
+    @Before
+    public void setUp() {
+        when(externalService.getMaxBatchSize()).thenReturn(2);
+        when(externalService.reactiveBatchRequest(any())).thenAnswer(invocation -> {
+            List<String> regions = invocation.<StudyBatchRequestDto>getArgument(0).getRegions();
+            Map<String, Double> values = regions.stream()
+                .filter(region -> !region.equals("atlantis"))
+                .collect(Collectors.toMap(region -> region, region -> (double) region.length()));
+            return Mono.just(values);
+        });
+    }
+
+    @Test
+    public void streamsRegionsAsJsonLines() {
+        String body = client.get()
+            .uri("/nio/service/uk-async?regions=kyiv,lviv,kyiv,odesa")
+            .accept(MediaType.APPLICATION_STREAM_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_STREAM_JSON)
+            .expectBody(String.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertTrue(body, body.contains("\"region\":\"kyiv\""));
+        assertTrue(body, body.contains("\"region\":\"lviv\""));
+        assertTrue(body, body.contains("\"region\":\"odesa\""));
+        assertEquals(body, 3, body.trim().split("\n").length);
+    }
+
+    @Test
+    public void streamsRegionsAsServerSentEvents() {
+        String body = client.post()
+            .uri("/nio/service/uk-async")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .syncBody(List.of("kyiv", "lviv"))
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+            .expectBody(String.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertTrue(body, body.contains("data:{\"region\":\"kyiv\""));
+        assertTrue(body, body.contains("data:{\"region\":\"lviv\""));
+    }
+
+    @Test
+    public void regionWithoutExternalValueHasNoColorValue() {
+        String body = client.get()
+            .uri("/nio/service/uk-async?regions=kyiv,atlantis")
+            .accept(MediaType.APPLICATION_STREAM_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertTrue(body, body.contains("{\"region\":\"atlantis\",\"result\":{\"colorSchema\":\"temperature\",\"colorValue\":null"));
+        assertEquals(body, 2, body.trim().split("\n").length);
+    }
+
+    @Test
+    public void unknownStudyIsNotFound() {
+        client.get()
+            .uri("/nio/service/unknown?regions=kyiv")
+            .accept(MediaType.APPLICATION_STREAM_JSON)
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void tooManyRegionsAreRejected() {
+        client.post()
+            .uri("/nio/service/uk-async")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_STREAM_JSON)
+            .syncBody(List.of("kyiv", "lviv", "odesa", "kharkiv"))
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+}
@@ -0,0 +1,37 @@
+package org.coinen.reactive.persistence;
+
+import org.coinen.reactive.persistence.db.WorldPopDensityReads;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.test.StepVerifier;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The application starts without the docker-compose databases.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("local")
+public class LocalProfileTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private WorldPopDensityReads worldPopDensityRepository;
+
+    @Test
+    public void contextStartsWithStandIns() {
+        assertTrue(context.getBeansOfType(CouchbaseConfig.class).isEmpty());
+
+        StepVerifier.create(worldPopDensityRepository.findById("ae"))
+            .expectNextCount(1)
+            .verifyComplete();
+    }
+}
@@ -0,0 +1,83 @@
+package org.coinen.reactive.persistence.db;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.model.Filters;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.reactivestreams.Subscriber;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EuropePopulationMongoReadsImplTest {
+
+    private final ReactiveMongoOperations operations = mock(ReactiveMongoOperations.class);
+    @SuppressWarnings("unchecked")
+    private final MongoCollection<Document> collection = mock(MongoCollection.class);
+    @SuppressWarnings("unchecked")
+    private final FindPublisher<Document> find = mock(FindPublisher.class, RETURNS_SELF);
+
+    private final EuropePopulationMongoReadsImpl reads =
+        new EuropePopulationMongoReadsImpl(operations, new MongoReadSettings(500));
+
+    @Before
+    public void setUp() {
+        when(operations.getCollectionName(EuropePopulationDto.class)).thenReturn("population");
+        when(operations.getCollection("population")).thenReturn(collection);
+        when(collection.find()).thenReturn(find);
+        when(collection.find(any(Bson.class))).thenReturn(find);
+        doAnswer(invocation -> {
+            Flux.just(
+                new Document("code", "ua").append("population", "42M"),
+                new Document("code", "pl"))
+                .subscribe(invocation.<Subscriber<Document>>getArgument(0));
+            return null;
+        }).when(find).subscribe(any());
+    }
+
+    @Test
+    public void scanMapsProjectedDocuments() {
+        StepVerifier.create(reads.findAll())
+            .expectNext(new EuropePopulationDto(null, "ua", "42M"))
+            .expectNext(new EuropePopulationDto(null, "pl", null))
+            .verifyComplete();
+
+        verify(find).batchSize(500);
+        ArgumentCaptor<Bson> projection = ArgumentCaptor.forClass(Bson.class);
+        verify(find).projection(projection.capture());
+        assertEquals(
+            BsonDocument.parse("{code: 1, population: 1, _id: 0}"),
+            bson(projection.getValue()));
+    }
+
+    @Test
+    public void lookupByCodesIsOneInQuery() {
+        StepVerifier.create(reads.findByCodeIn(List.of("ua", "pl")).count())
+            .expectNext(2L)
+            .verifyComplete();
+
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(collection).find(filter.capture());
+        assertEquals(bson(Filters.in("code", List.of("ua", "pl"))), bson(filter.getValue()));
+    }
+
+    private static BsonDocument bson(Bson bson) {
+        return bson.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+    }
+}
@@ -0,0 +1,70 @@
+package org.coinen.reactive.persistence.db;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ConnectionId;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionAddedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import com.mongodb.event.ConnectionPoolWaitQueueEnteredEvent;
+import com.mongodb.event.ConnectionPoolWaitQueueExitedEvent;
+import com.mongodb.event.ConnectionRemovedEvent;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class MongoDriverMetricsTest {
+    private static final ServerId SERVER = new ServerId(new ClusterId(), new ServerAddress());
+    private static final ConnectionId CONNECTION = new ConnectionId(SERVER);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MongoDriverMetrics metrics = new MongoDriverMetrics(registry);
+
+    @Test
+    public void poolUsageFollowsEvents() {
+        ConnectionPoolListener pool = metrics.connectionPoolListener();
+        pool.connectionAdded(new ConnectionAddedEvent(CONNECTION));
+        pool.connectionAdded(new ConnectionAddedEvent(CONNECTION));
+        pool.connectionRemoved(new ConnectionRemovedEvent(CONNECTION));
+        pool.connectionCheckedOut(new ConnectionCheckedOutEvent(CONNECTION));
+        pool.connectionCheckedOut(new ConnectionCheckedOutEvent(CONNECTION));
+        pool.connectionCheckedIn(new ConnectionCheckedInEvent(CONNECTION));
+        pool.waitQueueEntered(new ConnectionPoolWaitQueueEnteredEvent(SERVER));
+        pool.waitQueueEntered(new ConnectionPoolWaitQueueEnteredEvent(SERVER));
+        pool.waitQueueExited(new ConnectionPoolWaitQueueExitedEvent(SERVER));
+
+        assertEquals(1, registry.get("app.mongo.pool.size").gauge().value(), 0.0);
+        assertEquals(1, registry.get("app.mongo.pool.checked.out").gauge().value(), 0.0);
+        assertEquals(1, registry.get("app.mongo.pool.waiting").gauge().value(), 0.0);
+        // Every wait counts, also the ones that are over
+        assertEquals(2, registry.get("app.mongo.pool.waits").counter().count(), 0.0);
+    }
+
+    @Test
+    public void commandsAreTimedPerNameAndOutcome() {
+        ConnectionDescription connection = new ConnectionDescription(SERVER);
+        metrics.commandListener().commandSucceeded(
+            new CommandSucceededEvent(1, connection, "find", new BsonDocument(), TimeUnit.MILLISECONDS.toNanos(2)));
+        metrics.commandListener().commandSucceeded(
+            new CommandSucceededEvent(2, connection, "find", new BsonDocument(), TimeUnit.MILLISECONDS.toNanos(4)));
+        metrics.commandListener().commandFailed(
+            new CommandFailedEvent(3, connection, "find", TimeUnit.MILLISECONDS.toNanos(1), new IllegalStateException()));
+
+        Timer succeeded = registry.get("app.mongo.commands").tag("command", "find").tag("outcome", "success").timer();
+        assertEquals(2, succeeded.count());
+        assertEquals(6, succeeded.totalTime(TimeUnit.MILLISECONDS), 0.0);
+
+        Timer failed = registry.get("app.mongo.commands").tag("command", "find").tag("outcome", "error").timer();
+        assertEquals(1, failed.count());
+    }
+}
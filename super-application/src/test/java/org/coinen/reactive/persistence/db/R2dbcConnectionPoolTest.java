@@ -0,0 +1,99 @@
+package org.coinen.reactive.persistence.db;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import org.junit.After;
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+
+public class R2dbcConnectionPoolTest {
+
+    private final R2dbcConnectionPool pool = new R2dbcConnectionPool(
+        new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+            .url("mem:pool;DB_CLOSE_DELAY=-1")
+            .build()),
+        new R2dbcPoolSettings(
+            0,
+            1,
+            Duration.ofMillis(500),
+            Duration.ofMinutes(1),
+            Duration.ofMinutes(1),
+            "SELECT 1"));
+
+    @After
+    public void tearDown() {
+        pool.dispose();
+    }
+
+    @Test
+    public void releasedConnectionIsReused() {
+        Connection first = pool.create().block();
+        Mono<Connection> second = pool.create();
+
+        StepVerifier.create(second)
+            .then(() -> Mono.from(first.close()).subscribe())
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertEquals(1, pool.toStatus().getSize());
+        assertEquals(1, pool.toStatus().getAcquired());
+    }
+
+    @Test
+    public void acquireTimesOutWhenPoolIsExhausted() {
+        pool.create().block();
+
+        StepVerifier.create(pool.create())
+            .expectError(TimeoutException.class)
+            .verify();
+
+        assertEquals(0, pool.toStatus().getPending());
+    }
+
+    @Test
+    public void cancelledWaiterLeavesQueue() {
+        pool.create().block();
+        Disposable first = pool.create().subscribe();
+        Disposable second = pool.create().subscribe();
+        assertEquals(2, pool.toStatus().getPending());
+
+        // Not the head of the queue
+        second.dispose();
+        assertEquals(1, pool.toStatus().getPending());
+        first.dispose();
+        assertEquals(0, pool.toStatus().getPending());
+    }
+
+    @Test
+    public void openTransactionIsRolledBackOnRelease() {
+        Connection first = pool.create().block();
+        execute(first, "CREATE TABLE IF NOT EXISTS released (id INT)");
+        Mono.from(first.beginTransaction()).block();
+        execute(first, "INSERT INTO released VALUES (1)");
+        Mono.from(first.close()).block();
+
+        Connection second = pool.create().block();
+        StepVerifier.create(Flux.from(second.createStatement("SELECT COUNT(*) FROM released").execute())
+                .flatMap(result -> result.map((row, metadata) -> row.get(0, Long.class))))
+            .expectNext(0L)
+            .verifyComplete();
+
+        assertEquals(1, pool.toStatus().getSize());
+    }
+
+    private static void execute(Connection connection, String sql) {
+        Flux.from(connection.createStatement(sql).execute())
+            .flatMap(Result::getRowsUpdated)
+            .blockLast();
+    }
+}
@@ -0,0 +1,93 @@
+package org.coinen.reactive.persistence.db;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RegionBatcherTest {
+
+    private final List<Collection<String>> queries = new CopyOnWriteArrayList<>();
+
+    private RegionBatcher<UsSalesDataDto, Object> batcher(int maxBatchSize) {
+        return new RegionBatcher<>(
+            "usa-districts-jdbc",
+            codes -> {
+                queries.add(new ArrayList<>(codes));
+                return Flux.fromIterable(codes)
+                    .filter(code -> !code.equals("xx"))
+                    .map(code -> new UsSalesDataDto(code, code.length()));
+            },
+            UsSalesDataDto::getCode,
+            UsSalesDataDto::getSales,
+            maxBatchSize,
+            Duration.ofMillis(20),
+            2);
+    }
+
+    @Test
+    public void concurrentLookupsAreCollapsed() {
+        var batcher = batcher(100);
+
+        StepVerifier.create(
+            Flux.just("nv2", "il15", "nv2", "xx")
+                .flatMap(code -> batcher.lookup(code).defaultIfEmpty("none"))
+                .collectList())
+            .assertNext(values -> assertEquals(4, values.size()))
+            .verifyComplete();
+
+        assertEquals(1, queries.size());
+        assertEquals(3, queries.get(0).size());
+    }
+
+    @Test
+    public void batchesAreCappedBySize() {
+        var batcher = batcher(2);
+
+        StepVerifier.create(
+            Flux.just("nv2", "il15", "mn6", "pa12", "wa3")
+                .flatMap(batcher::lookup)
+                .count())
+            .expectNext(5L)
+            .verifyComplete();
+
+        assertEquals(3, queries.size());
+        assertTrue(queries.stream().allMatch(q -> q.size() <= 2));
+    }
+
+    @Test
+    public void lookupsAfterThrowingQueryComplete() {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        var batcher = new RegionBatcher<UsSalesDataDto, Object>(
+            "usa-districts-jdbc",
+            codes -> {
+                if (failing.getAndSet(false)) {
+                    throw new IllegalStateException("connection refused");
+                }
+                return Flux.fromIterable(codes).map(code -> new UsSalesDataDto(code, code.length()));
+            },
+            UsSalesDataDto::getCode,
+            UsSalesDataDto::getSales,
+            100,
+            Duration.ofMillis(20),
+            2);
+
+        StepVerifier.create(batcher.lookup("nv2"))
+            .expectErrorMessage("connection refused")
+            .verify(Duration.ofSeconds(5));
+        assertFalse(failing.get());
+        StepVerifier.create(batcher.lookup("il15"))
+            .expectNext(4.0)
+            .verifyComplete();
+    }
+}
@@ -0,0 +1,82 @@
+package org.coinen.reactive.persistence.db;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RegionReplicaTest {
+
+    private final AtomicReference<List<WorldGdpDto>> rows = new AtomicReference<>(List.of(
+        new WorldGdpDto("ua", 136.56),
+        new WorldGdpDto("pl", 438.88)));
+
+    private final RegionReplica<WorldGdpDto> replica = new RegionReplica<>(
+        "world-gdp",
+        () -> Flux.defer(() -> Flux.fromIterable(rows.get())),
+        WorldGdpDto::getCountry_code,
+        WorldGdpDto::getGdp,
+        Duration.ofMinutes(1));
+
+    @Test
+    public void lookupsAfterWarmUp() {
+        assertNull(replica.table());
+
+        StepVerifier.create(replica.refresh())
+            .expectNextCount(1)
+            .verifyComplete();
+
+        RegionReplica.Table table = replica.table();
+        assertEquals(2, table.size());
+        assertEquals(136.56, table.value(table.id("ua")), 0.0);
+        assertEquals(438.88, table.value(table.id(new String("pl"))), 0.0);
+        assertEquals(-1, table.id("xx"));
+    }
+
+    @Test
+    public void refreshSwapsInNewVersion() {
+        replica.refresh().block();
+        RegionReplica.Table first = replica.table();
+
+        rows.set(List.of(
+            new WorldGdpDto("ua", 150.0),
+            new WorldGdpDto("ua", 155.0),
+            new WorldGdpDto("de", 3996.76)));
+        replica.refresh().block();
+        RegionReplica.Table second = replica.table();
+
+        // Readers of the old version are not affected
+        assertEquals(136.56, first.value(first.id("ua")), 0.0);
+        assertEquals(1, first.version());
+
+        assertEquals(2, second.version());
+        assertEquals(2, second.size());
+        assertEquals(155.0, second.value(second.id("ua")), 0.0);
+        assertEquals(-1, second.id("pl"));
+        assertSame("de", second.region(second.id("de")));
+    }
+
+    @Test
+    public void manyRegionsAreIndexed() {
+        String[] codes = new String[500];
+        WorldGdpDto[] table = new WorldGdpDto[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = "r" + i;
+            table[i] = new WorldGdpDto(codes[i], i);
+        }
+        rows.set(List.of(table));
+        replica.refresh().block();
+
+        RegionReplica.Table loaded = replica.table();
+        for (int i = 0; i < codes.length; i++) {
+            assertEquals(i, loaded.value(loaded.id(codes[i])), 0.0);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.coinen.reactive.persistence.db;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class RegionSnapshotCacheTest {
+
+    private final AtomicInteger scans = new AtomicInteger();
+
+    private RegionSnapshotCache<WorldGdpDto, Object> cache(Duration ttl, boolean refreshAhead) {
+        return new RegionSnapshotCache<>(
+            "world-gdp",
+            () -> Flux.just(new WorldGdpDto("ua", 136.56), new WorldGdpDto("pl", 438.88))
+                .delaySubscription(Duration.ofMillis(50))
+                .doOnSubscribe(__ -> scans.incrementAndGet()),
+            WorldGdpDto::getCountry_code,
+            WorldGdpDto::getGdp,
+            ttl,
+            refreshAhead);
+    }
+
+    @Test
+    public void concurrentLookupsShareOneScan() {
+        var cache = cache(Duration.ofMinutes(1), false);
+
+        StepVerifier.create(
+            Flux.range(0, 100)
+                .flatMap(i -> cache.lookup(i % 2 == 0 ? "ua" : "pl"))
+                .count())
+            .expectNext(100L)
+            .verifyComplete();
+
+        StepVerifier.create(cache.lookup("ua"))
+            .expectNext(136.56)
+            .verifyComplete();
+
+        assertEquals(1, scans.get());
+    }
+
+    @Test
+    public void unknownRegionIsEmpty() {
+        StepVerifier.create(cache(Duration.ofMinutes(1), false).lookup("xx"))
+            .verifyComplete();
+    }
+
+    @Test
+    public void expiredSnapshotIsServedWhileRefreshingAhead() {
+        var cache = cache(Duration.ofMillis(1), true);
+
+        StepVerifier.create(cache.lookup("pl")).expectNext(438.88).verifyComplete();
+        StepVerifier.create(Mono.delay(Duration.ofMillis(10)).then(Mono.defer(() -> cache.lookup("pl"))))
+            .expectNext(438.88)
+            .verifyComplete();
+
+        assertEquals(2, scans.get());
+    }
+}
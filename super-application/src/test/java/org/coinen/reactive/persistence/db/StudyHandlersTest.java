@@ -0,0 +1,86 @@
+package org.coinen.reactive.persistence.db;
+
+import org.bson.types.ObjectId;
+import org.coinen.reactive.persistence.Studies;
+import org.coinen.reactive.persistence.db.local.InMemoryEuropePopulationRepository;
+import org.coinen.reactive.persistence.db.local.InMemoryUsSalesJdbcRepository;
+import org.coinen.reactive.persistence.db.local.InMemoryUsSalesR2dbcRepository;
+import org.coinen.reactive.persistence.db.local.InMemoryWorldGdpRepository;
+import org.coinen.reactive.persistence.db.local.InMemoryWorldPopDensityRepository;
+import org.coinen.reactive.persistence.db.local.LatencyDistribution;
+import org.junit.Test;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StudyHandlersTest {
+    private static final LatencyDistribution NO_LATENCY = LatencyDistribution.fixed(0);
+
+    private final StudyHandlers handlers = StudyHandlers.create(
+        Schedulers.immediate(),
+        new InMemoryWorldGdpRepository(List.of(new WorldGdpDto("ua", 136.56)), NO_LATENCY),
+        new InMemoryEuropePopulationRepository(List.of(new EuropePopulationDto(new ObjectId(), "ua", "42M")), NO_LATENCY),
+        new InMemoryWorldPopDensityRepository(List.of(new WorldPopDensityDto("ua", 73.0)), NO_LATENCY),
+        new InMemoryUsSalesJdbcRepository(List.of(new UsSalesDataDto("ny", 4.0)), NO_LATENCY),
+        new InMemoryUsSalesR2dbcRepository(List.of(new UsSalesDataDto("ca", 5.0)), NO_LATENCY));
+
+    @Test
+    public void everyStudyHasHandler() {
+        assertEquals(Studies.values().length, handlers.all().size());
+        for (Studies study : Studies.values()) {
+            assertEquals(study, handlers.get(study).getStudy());
+        }
+    }
+
+    @Test
+    public void policiesPerStudy() {
+        assertEquals(LookupPolicy.NONE, handlers.get(Studies.UKRAINE_WEATHR_27_ASYNC).getPolicy());
+        assertFalse(handlers.get(Studies.UKRAINE_WEATHR_4_SYNC).hasPersistedData());
+        assertEquals(LookupPolicy.SNAPSHOT, handlers.get(Studies.WORLD_GDP).getPolicy());
+        assertEquals(LookupPolicy.COLLAPSED, handlers.get(Studies.US_SALES_JDBC).getPolicy());
+
+        // Labels are not replicable
+        assertFalse(handlers.get(Studies.EUROPE_POP).isReplicable());
+        assertTrue(handlers.get(Studies.WORLD_GDP).isReplicable());
+    }
+
+    @Test
+    public void blockingStudySharesR2dbcQueries() {
+        StudyHandler<?> r2dbc = handlers.get(Studies.US_DISTRICS_R2DBC);
+        StudyHandler<?> blocking = handlers.get(Studies.US_DISTRICS_BLOCKING);
+
+        assertEquals(r2dbc.getBackend(), blocking.getBackend());
+        assertEquals(r2dbc.getScan(), blocking.getScan());
+        assertNull(blocking.getMultiGet());
+    }
+
+    @Test
+    public void queriesReadFromRepositories() {
+        StepVerifier.create(handlers.get(Studies.WORLD_GDP).getGet().apply("ua"))
+            .expectNext(new WorldGdpDto("ua", 136.56))
+            .verifyComplete();
+
+        StepVerifier.create(handlers.get(Studies.US_SALES_JDBC).getMultiGet().apply(List.of("ny", "xx")))
+            .expectNext(new UsSalesDataDto("ny", 4.0))
+            .verifyComplete();
+
+        StepVerifier.create(handlers.get(Studies.EUROPE_POP).getScan().get().map(EuropePopulationDto::getCode))
+            .expectNext("ua")
+            .verifyComplete();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failsOnMissingStudy() {
+        List<StudyHandler<?>> withoutWorldGdp = new ArrayList<>(handlers.all());
+        withoutWorldGdp.remove(handlers.get(Studies.WORLD_GDP));
+
+        new StudyHandlers(withoutWorldGdp);
+    }
+}
@@ -0,0 +1,106 @@
+package org.coinen.reactive.persistence.db;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Statement;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.cassandra.ReactiveResultSet;
+import org.springframework.data.cassandra.ReactiveSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WorldGdpCassandraReadsImplTest {
+
+    private final ReactiveSession session = mock(ReactiveSession.class);
+    private final PreparedStatement prepared = mock(PreparedStatement.class);
+    private final BoundStatement bound = mock(BoundStatement.class, RETURNS_SELF);
+    private final ReactiveResultSet resultSet = mock(ReactiveResultSet.class);
+
+    @Before
+    public void setUp() {
+        when(session.prepare(anyString())).thenReturn(Mono.just(prepared));
+        when(prepared.bind(any())).thenReturn(bound);
+        when(session.execute(any(Statement.class))).thenReturn(Mono.just(resultSet));
+    }
+
+    private WorldGdpCassandraReadsImpl reads(boolean asyncMultiGet) {
+        return new WorldGdpCassandraReadsImpl(session, new CassandraReadSettings(ConsistencyLevel.LOCAL_ONE, 1000, asyncMultiGet, 4));
+    }
+
+    private static Row row(String countryCode, float gdp) {
+        Row row = mock(Row.class);
+        when(row.getString(0)).thenReturn(countryCode);
+        when(row.getFloat(1)).thenReturn(gdp);
+        return row;
+    }
+
+    @Test
+    public void scanMapsRowsInOnePage() {
+        when(resultSet.rows()).thenReturn(Flux.just(row("ua", 136.5f), row("pl", 438.75f)));
+
+        StepVerifier.create(reads(true).findAll())
+            .expectNext(new WorldGdpDto("ua", 136.5), new WorldGdpDto("pl", 438.75))
+            .verifyComplete();
+
+        verify(session).prepare("SELECT country_code, gdp FROM world_gdp");
+        verify(bound).setFetchSize(1000);
+        verify(bound).setConsistencyLevel(ConsistencyLevel.LOCAL_ONE);
+        verify(bound).setIdempotent(true);
+    }
+
+    @Test
+    public void pointReadMapsFirstRowOrNothing() {
+        when(resultSet.availableRows()).thenReturn(Flux.just(row("ua", 136.5f)), Flux.empty());
+        WorldGdpCassandraReadsImpl reads = reads(true);
+
+        StepVerifier.create(reads.findById("ua"))
+            .expectNext(new WorldGdpDto("ua", 136.5))
+            .verifyComplete();
+        StepVerifier.create(reads.findById("xx"))
+            .verifyComplete();
+
+        verify(prepared).bind("ua");
+        verify(prepared).bind("xx");
+        // Prepared once per session
+        verify(session, times(1)).prepare(anyString());
+    }
+
+    @Test
+    public void multiGetAsPointReads() {
+        when(resultSet.availableRows()).thenReturn(Flux.just(row("ua", 136.5f)), Flux.just(row("pl", 438.75f)));
+
+        StepVerifier.create(reads(true).findByCountryCodeIn(List.of("ua", "pl")).count())
+            .expectNext(2L)
+            .verifyComplete();
+
+        verify(session).prepare("SELECT country_code, gdp FROM world_gdp WHERE country_code = ?");
+        verify(session, times(2)).execute(any(Statement.class));
+    }
+
+    @Test
+    public void multiGetAsInQuery() {
+        when(resultSet.rows()).thenReturn(Flux.just(row("ua", 136.5f), row("pl", 438.75f)));
+
+        StepVerifier.create(reads(false).findByCountryCodeIn(List.of("ua", "pl")))
+            .expectNext(new WorldGdpDto("ua", 136.5), new WorldGdpDto("pl", 438.75))
+            .verifyComplete();
+
+        verify(session).prepare("SELECT country_code, gdp FROM world_gdp WHERE country_code IN ?");
+        verify(prepared).bind(eq(List.of("ua", "pl")));
+    }
+}
@@ -0,0 +1,49 @@
+package org.coinen.reactive.persistence.db.local;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import org.coinen.reactive.persistence.db.UsSalesDataDto;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.r2dbc.function.DatabaseClient;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+public class H2UsSalesR2dbcRepositoryTest {
+    private final H2UsSalesR2dbcRepository repository = new H2UsSalesR2dbcRepository(
+        DatabaseClient.create(new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+            .url("mem:us-sales-test;DB_CLOSE_DELAY=-1")
+            .build())),
+        LatencyDistribution.fixed(0));
+
+    @Before
+    public void setUp() {
+        repository.load(List.of(
+            new UsSalesDataDto("ca", 5.0),
+            new UsSalesDataDto("ny", 4.0),
+            new UsSalesDataDto("tx", 3.5)));
+    }
+
+    @Test
+    public void readsLoadedRows() {
+        StepVerifier.create(repository.findById("ny"))
+            .expectNext(new UsSalesDataDto("ny", 4.0))
+            .verifyComplete();
+        StepVerifier.create(repository.findAllById(List.of("ca", "tx", "unknown")).map(UsSalesDataDto::getCode).sort())
+            .expectNext("ca", "tx")
+            .verifyComplete();
+        StepVerifier.create(repository.count())
+            .expectNext(3L)
+            .verifyComplete();
+    }
+
+    @Test
+    public void savesAndDeletesRows() {
+        StepVerifier.create(repository.save(new UsSalesDataDto("ca", 6.0))
+                .then(repository.deleteById("tx"))
+                .thenMany(repository.findAll().map(UsSalesDataDto::getSales).sort()))
+            .expectNext(4.0, 6.0)
+            .verifyComplete();
+    }
+}
@@ -0,0 +1,55 @@
+package org.coinen.reactive.persistence.db.local;
+
+import org.bson.types.ObjectId;
+import org.coinen.reactive.persistence.db.EuropePopulationDto;
+import org.junit.Test;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Sort;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+public class InMemoryEuropePopulationRepositoryTest {
+    private final InMemoryEuropePopulationRepository repository = new InMemoryEuropePopulationRepository(
+        List.of(
+            new EuropePopulationDto(new ObjectId(), "ua", "42M"),
+            new EuropePopulationDto(new ObjectId(), "pl", "38M"),
+            new EuropePopulationDto(new ObjectId(), "de", "83M")),
+        LatencyDistribution.fixed(0));
+
+    @Test
+    public void sortsByProperties() {
+        StepVerifier.create(repository.findAll(Sort.by(Sort.Order.desc("population")))
+                .map(EuropePopulationDto::getCode))
+            .expectNext("de", "ua", "pl")
+            .verifyComplete();
+    }
+
+    @Test
+    public void matchesNonNullPropertiesOfExample() {
+        StepVerifier.create(repository.findAll(Example.of(new EuropePopulationDto(null, "pl", null)))
+                .map(EuropePopulationDto::getPopulation))
+            .expectNext("38M")
+            .verifyComplete();
+
+        StepVerifier.create(repository.count(Example.of(new EuropePopulationDto(null, "pl", "42M"))))
+            .expectNext(0L)
+            .verifyComplete();
+    }
+
+    @Test
+    public void matchesStringsAsMatcherSays() {
+        ExampleMatcher containing = ExampleMatcher.matching()
+            .withMatcher("population", ExampleMatcher.GenericPropertyMatcher::contains);
+        Example<EuropePopulationDto> example = Example.of(new EuropePopulationDto(null, null, "8"), containing);
+
+        StepVerifier.create(repository.findAll(example, Sort.by("code")).map(EuropePopulationDto::getCode))
+            .expectNext("de", "pl")
+            .verifyComplete();
+        StepVerifier.create(repository.findOne(example))
+            .expectError(IncorrectResultSizeDataAccessException.class)
+            .verify();
+    }
+}
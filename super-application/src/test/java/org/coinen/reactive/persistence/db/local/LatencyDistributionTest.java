@@ -0,0 +1,54 @@
+package org.coinen.reactive.persistence.db.local;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyDistributionTest {
+
+    @Test
+    public void fixedSpec() {
+        assertEquals(Duration.ofMillis(2000), LatencyDistribution.parse(" 2000 ").next());
+    }
+
+    @Test
+    public void uniformSpecStaysInRange() {
+        LatencyDistribution latency = LatencyDistribution.parse("5..20");
+        for (int i = 0; i < 1000; i++) {
+            long millis = latency.next().toMillis();
+            assertTrue(millis >= 5 && millis <= 20);
+        }
+    }
+
+    @Test
+    public void logNormalSpecCentersOnMedian() {
+        LatencyDistribution latency = LatencyDistribution.parse("lognormal:5:0.5");
+        int below = 0;
+        for (int i = 0; i < 10_000; i++) {
+            Duration next = latency.next();
+            assertTrue(next.toNanos() > 0);
+            if (next.compareTo(Duration.ofMillis(5)) < 0) {
+                below++;
+            }
+        }
+        assertEquals(5_000, below, 500);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformedNumberIsRejected() {
+        LatencyDistribution.parse("2s");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void incompleteRangeIsRejected() {
+        LatencyDistribution.parse("5..");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void logNormalWithoutSigmaIsRejected() {
+        LatencyDistribution.parse("lognormal:5");
+    }
+}
@@ -0,0 +1,69 @@
+package org.coinen.reactive.persistence.external;
+
+import org.junit.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExternalResponseDecoderTest {
+
+    private static double decode(String body) {
+        return ExternalResponseDecoder.decode(ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String body(double value) {
+        return "{\"value\":" + value + "}";
+    }
+
+    @Test
+    public void decodesBodiesOfExternalService() {
+        assertEquals(21.5, decode(body(21.5)), 0.0);
+        assertEquals(-3.0, decode(body(-3.0)), 0.0);
+        assertEquals(1.0E-5, decode(body(1.0E-5)), 0.0);
+        assertEquals(4.2E12, decode(body(4.2E12)), 0.0);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            double value = random.nextDouble() * Math.pow(10, random.nextInt(20) - 10);
+            assertEquals(value, decode(body(value)), 0.0);
+        }
+    }
+
+    @Test
+    public void otherLayoutsFallBackToJackson() {
+        assertEquals(21.5, decode("{ \"value\" : 21.5 }"), 0.0);
+        assertEquals(7.0, decode("{\"region\":\"ua\",\"value\":7}"), 0.0);
+        assertEquals(1.7976931348623157E308, decode(body(Double.MAX_VALUE)), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingValueIsAnError() {
+        decode("{\"temperature\":21.5}");
+    }
+
+    @Test
+    public void decodesSplitWebClientBody() {
+        DefaultDataBufferFactory buffers = new DefaultDataBufferFactory();
+        Flux<DataBuffer> body = Flux.just("{\"val", "ue\":36", ".6}")
+            .map(chunk -> buffers.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+        ClientResponse response = ClientResponse.create(HttpStatus.OK)
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .body(body)
+            .build();
+
+        StepVerifier.create(ExternalResponseDecoder.decode(response))
+            .assertNext(result -> assertEquals(36.6, result.getValue(), 0.0))
+            .verifyComplete();
+    }
+}
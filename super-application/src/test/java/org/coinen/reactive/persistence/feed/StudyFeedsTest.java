@@ -0,0 +1,108 @@
+package org.coinen.reactive.persistence.feed;
+
+import org.coinen.reactive.persistence.Studies;
+import org.coinen.reactive.persistence.db.DatabaseFacade;
+import org.coinen.reactive.persistence.db.RegionSnapshotCache;
+import org.coinen.reactive.persistence.db.WorldGdpDto;
+import org.coinen.reactive.persistence.external.ExternalService;
+import org.coinen.reactive.persistence.model.RegionResultDto;
+import org.coinen.reactive.persistence.model.StudyBatchRequestDto;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StudyFeedsTest {
+    private static final Duration POLL_INTERVAL = Duration.ofSeconds(1);
+
+    private final AtomicReference<List<WorldGdpDto>> rows = new AtomicReference<>(List.of(
+        new WorldGdpDto("ua", 136.56),
+        new WorldGdpDto("pl", 438.88)));
+    // Regions the external service has no value for
+    private final AtomicReference<Set<String>> unknown = new AtomicReference<>(Set.of());
+
+    private final DatabaseFacade dbFacade = mock(DatabaseFacade.class);
+    private final ExternalService externalService = mock(ExternalService.class);
+    private final StudyFeeds feeds = new StudyFeeds(dbFacade, externalService, POLL_INTERVAL);
+
+    @Before
+    public void setUp() {
+        // Rescanned on every poll
+        RegionSnapshotCache<WorldGdpDto, Object> snapshot = new RegionSnapshotCache<>(
+            "world-gdp",
+            () -> Flux.defer(() -> Flux.fromIterable(rows.get())),
+            WorldGdpDto::getCountry_code,
+            WorldGdpDto::getGdp,
+            Duration.ZERO,
+            false);
+        when(dbFacade.regionSnapshot(Studies.WORLD_GDP)).thenReturn(snapshot);
+
+        when(externalService.getMaxBatchSize()).thenReturn(50);
+        when(externalService.reactiveBatchRequest(any())).thenAnswer(invocation -> {
+            List<String> regions = invocation.<StudyBatchRequestDto>getArgument(0).getRegions();
+            Map<String, Double> values = regions.stream()
+                .filter(region -> !unknown.get().contains(region))
+                .collect(Collectors.toMap(region -> region, region -> 1.0));
+            return Mono.just(values);
+        });
+    }
+
+    @Test
+    public void noFeedWithoutPersistedData() {
+        assertFalse(feeds.updates(Studies.UKRAINE_WEATHR_27_ASYNC).isPresent());
+    }
+
+    @Test
+    public void sendsChangedAndRemovedRegions() {
+        StepVerifier.withVirtualTime(() -> feeds.updates(Studies.WORLD_GDP).get().map(StudyFeedsTest::describe))
+            .expectSubscription()
+            // The full map first
+            .recordWith(TreeSet::new)
+            .expectNextCount(2)
+            .consumeRecordedWith(all -> assertEquals(List.of("pl 438.9", "ua 136.6"), List.copyOf(all)))
+            // Nothing changed
+            .expectNoEvent(POLL_INTERVAL)
+            .then(() -> rows.set(List.of(new WorldGdpDto("ua", 150.0))))
+            .thenAwait(POLL_INTERVAL)
+            .expectNext("ua 150.0", "pl removed")
+            .expectNoEvent(POLL_INTERVAL)
+            .thenCancel()
+            .verify();
+    }
+
+    @Test
+    public void retriesRegionsMissingFromExternalValues() {
+        unknown.set(Set.of("pl"));
+
+        StepVerifier.withVirtualTime(() -> feeds.updates(Studies.WORLD_GDP).get().map(StudyFeedsTest::describe))
+            .expectSubscription()
+            .expectNext("ua 136.6")
+            .expectNoEvent(POLL_INTERVAL)
+            .then(() -> unknown.set(Set.of()))
+            .thenAwait(POLL_INTERVAL)
+            .expectNext("pl 438.9")
+            .expectNoEvent(POLL_INTERVAL)
+            .thenCancel()
+            .verify();
+    }
+
+    private static String describe(RegionResultDto update) {
+        return update.getRegion() + " " +
+            (update.getResult() == null ? "removed" : update.getResult().getPinValue());
+    }
+}
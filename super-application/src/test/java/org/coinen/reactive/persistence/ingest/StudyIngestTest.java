@@ -0,0 +1,126 @@
+package org.coinen.reactive.persistence.ingest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.coinen.reactive.persistence.Studies;
+import org.coinen.reactive.persistence.model.StudyRecordDto;
+import org.junit.Test;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StudyIngestTest {
+
+    @Test
+    public void fullBatchesAndRemainder() {
+        StepVerifier.create(StudyIngest.batches(Flux.range(0, 7), 3, Duration.ofMinutes(1)))
+            .expectNext(List.of(0, 1, 2), List.of(3, 4, 5), List.of(6))
+            .verifyComplete();
+    }
+
+    @Test
+    public void partialBatchIsFlushedAfterDelay() {
+        Flux<Integer> trickle = Flux.concat(
+            Flux.just(1, 2),
+            Mono.delay(Duration.ofMillis(300)).thenReturn(3));
+
+        StepVerifier.create(StudyIngest.batches(trickle, 100, Duration.ofMillis(50)))
+            .expectNext(List.of(1, 2))
+            .expectNext(List.of(3))
+            .verifyComplete();
+    }
+
+    @Test
+    public void recordsArePulledNoFasterThanWritten() {
+        AtomicLong requested = new AtomicLong();
+        AtomicInteger writing = new AtomicInteger();
+        AtomicInteger maxWriting = new AtomicInteger();
+
+        StudyWriter slow = new StudyWriter(Studies.WORLD_GDP, "cassandra", batch ->
+            Mono.delay(Duration.ofMillis(20))
+                .doOnSubscribe(__ -> maxWriting.accumulateAndGet(writing.incrementAndGet(), Math::max))
+                .doOnTerminate(writing::decrementAndGet)
+                .thenReturn((long) batch.size()));
+        StudyIngest ingest = new StudyIngest(
+            new StudyWriters(List.of(slow)),
+            new IngestSettings(10, Duration.ofMillis(50), 2),
+            new SimpleMeterRegistry());
+
+        Flux<StudyRecordDto> records = Flux.range(0, 100_000)
+            .map(i -> new StudyRecordDto("r" + i, "1.5"))
+            .doOnRequest(n -> requested.accumulateAndGet(n, (total, more) -> total + more < 0 ? Long.MAX_VALUE : total + more));
+
+        // About 1000 records per second get written
+        StepVerifier.create(ingest.ingest(Studies.WORLD_GDP, records).get())
+            .expectSubscription()
+            .expectNoEvent(Duration.ofMillis(300))
+            .thenCancel()
+            .verify();
+
+        assertTrue("writes in flight: " + maxWriting.get(), maxWriting.get() <= 2);
+        assertTrue("records requested: " + requested.get(), requested.get() < 2_000);
+    }
+
+    @Test
+    public void allRecordsAreWritten() {
+        StudyIngest ingest = new StudyIngest(
+            new StudyWriters(List.of(new StudyWriter(Studies.WORLD_GDP, "cassandra", batch -> Mono.just((long) batch.size())))),
+            new IngestSettings(10, Duration.ofMillis(50), 2),
+            new SimpleMeterRegistry());
+
+        StepVerifier.create(ingest.ingest(Studies.WORLD_GDP, Flux.range(0, 205).map(i -> new StudyRecordDto("r" + i, "1.5"))).get())
+            .assertNext(result -> {
+                assertEquals(205, result.getRecords());
+                assertEquals(21, result.getBatches());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    public void repeatedRegionKeepsLastRecordForUpsert() {
+        List<StudyRecordDto> batch = List.of(
+            new StudyRecordDto("ny", "1"),
+            new StudyRecordDto("ca", "2"),
+            new StudyRecordDto("ny", "3"));
+
+        List<StudyRecordDto> upserted = StudyWriters.lastPerRegion(batch);
+
+        assertEquals(2, upserted.size());
+        assertTrue(upserted.contains(new StudyRecordDto("ny", "3")));
+        assertTrue(upserted.contains(new StudyRecordDto("ca", "2")));
+
+        List<StudyRecordDto> unique = List.of(new StudyRecordDto("ny", "1"));
+        assertSame(unique, StudyWriters.lastPerRegion(unique));
+    }
+
+    @Test
+    public void studiesWithoutPersistedDataHaveNoIngest() {
+        StudyIngest ingest = new StudyIngest(
+            new StudyWriters(List.of()),
+            new IngestSettings(10, Duration.ofMillis(50), 2),
+            new SimpleMeterRegistry());
+
+        assertTrue(ingest.ingest(Studies.UKRAINE_WEATHR_4_SYNC, Flux.empty()).isEmpty());
+    }
+
+    @Test
+    public void incompleteRecordIsRejected() {
+        StudyIngest ingest = new StudyIngest(
+            new StudyWriters(List.of(new StudyWriter(Studies.WORLD_GDP, "cassandra", batch -> Mono.just(0L)))),
+            new IngestSettings(10, Duration.ofMillis(50), 2),
+            new SimpleMeterRegistry());
+
+        StepVerifier.create(ingest.ingest(Studies.WORLD_GDP, Flux.just(new StudyRecordDto("ua", null))).get())
+            .expectError(ResponseStatusException.class)
+            .verify();
+    }
+}
@@ -0,0 +1,54 @@
+package org.coinen.reactive.persistence.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveBulkheadTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AdaptiveBulkhead bulkhead =
+        AppSchedulers.newBulkhead("test", 2, 8, 2, Duration.ofHours(1));
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        bulkhead.dispose();
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void rejectsWhenQueueIsFull() {
+        for (int i = 0; i < 5; i++) {
+            bulkhead.execute(this::awaitRelease);
+        }
+    }
+
+    @Test
+    public void growsWhileSaturatedWithStableLatency() throws InterruptedException {
+        bulkhead.execute(() -> { });
+        bulkhead.execute(() -> { });
+        Thread.sleep(50);
+
+        for (int i = 0; i < 4; i++) {
+            bulkhead.execute(this::awaitRelease);
+        }
+        bulkhead.adjustLimit();
+
+        assertTrue(bulkhead.getLimit() > 2);
+        assertEquals(0, bulkhead.toStatus().getRejected());
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.coinen.reactive.persistence.utils;
+
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+
+public class CircuitBreakerTest {
+
+    private final CircuitBreaker breaker = new CircuitBreaker("test", new CircuitBreakerSettings(
+        4, 2, 0.5, Duration.ofMillis(200), 0.5, Duration.ofSeconds(1), Duration.ofMillis(100), 1));
+
+    @Test
+    public void opensOnFailuresAndFailsFast() {
+        failCall();
+        failCall();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        StepVerifier.create(breaker.protect(Mono.just(1)))
+            .expectError(CircuitBreaker.CallNotPermittedException.class)
+            .verify();
+        assertEquals(1, breaker.toStatus().getNotPermitted());
+    }
+
+    @Test
+    public void closesAfterSuccessfulProbe() throws InterruptedException {
+        failCall();
+        failCall();
+        Thread.sleep(150);
+
+        StepVerifier.create(breaker.protect(Mono.just(1)))
+            .expectNext(1)
+            .verifyComplete();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void halfOpenAdmitsOnlyItsProbes() throws InterruptedException {
+        failCall();
+        failCall();
+        Thread.sleep(150);
+
+        breaker.protect(Mono.delay(Duration.ofMillis(50))).subscribe();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        StepVerifier.create(breaker.protect(Mono.just(1)))
+            .expectError(CircuitBreaker.CallNotPermittedException.class)
+            .verify();
+    }
+
+    @Test
+    public void opensOnSlowCalls() {
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(breaker.protect(Mono.delay(Duration.ofMillis(300))))
+                .expectNextCount(1)
+                .verifyComplete();
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private void failCall() {
+        StepVerifier.create(breaker.protect(Mono.error(new IllegalStateException())))
+            .expectError(IllegalStateException.class)
+            .verify();
+    }
+}
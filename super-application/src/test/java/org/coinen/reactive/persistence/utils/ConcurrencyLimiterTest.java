@@ -0,0 +1,103 @@
+package org.coinen.reactive.persistence.utils;
+
+import org.junit.After;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrencyLimiterTest {
+
+    private final ConcurrencyLimiter limiter = new ConcurrencyLimiter("test",
+        new ConcurrencyLimitSettings(true, 1, 1, 8, Duration.ofHours(1), 1, Duration.ofMillis(200)));
+
+    @After
+    public void tearDown() {
+        limiter.dispose();
+    }
+
+    @Test
+    public void queuedRequestGetsReleasedPermit() {
+        ConcurrencyLimiter.Permit first = limiter.acquire().block();
+
+        StepVerifier.create(limiter.acquire())
+            .then(first::release)
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertEquals(1, limiter.toStatus().getInFlight());
+        assertEquals(0, limiter.toStatus().getQueued());
+    }
+
+    @Test
+    public void rejectsWhenQueueIsFullOrTimesOut() {
+        limiter.acquire().block();
+        Mono<ConcurrencyLimiter.Permit> queued = limiter.acquire();
+
+        StepVerifier.create(queued)
+            .then(() -> StepVerifier.create(limiter.acquire())
+                .expectError(ConcurrencyLimiter.LimitExceededException.class)
+                .verify())
+            .expectError(ConcurrencyLimiter.LimitExceededException.class)
+            .verify(Duration.ofSeconds(1));
+
+        assertEquals(2, limiter.toStatus().getRejected());
+        assertEquals(0, limiter.toStatus().getQueued());
+    }
+
+    @Test
+    public void growsWhileSaturatedWithStableLatency() {
+        limiter.acquire().block().release();
+        limiter.acquire().block();
+        limiter.acquire().subscribe(null, e -> { });
+        limiter.adjustLimit();
+
+        assertTrue(limiter.getLimit() > 1);
+    }
+
+    // Backend that serves 4 requests at no-load latency, more queue up inside it
+    @Test
+    public void settlesNearCapacityUnderOverload() throws InterruptedException {
+        ConcurrencyLimiter overloaded = new ConcurrencyLimiter("overloaded",
+            new ConcurrencyLimitSettings(true, 16, 2, 64, Duration.ofHours(1), 0, Duration.ofMillis(10)));
+        try {
+            // No-load latency
+            for (int i = 0; i < 5; i++) {
+                serve(overloaded, 1);
+            }
+            overloaded.adjustLimit();
+            assertEquals(16, overloaded.getLimit());
+
+            // Twice the initial limit is offered in every interval
+            for (int interval = 0; interval < 10; interval++) {
+                int limit = overloaded.getLimit();
+                assertEquals(limit, serve(overloaded, 32));
+                overloaded.adjustLimit();
+            }
+
+            // Requests over the limit were shed right away instead of slowing down the admitted ones
+            assertTrue(overloaded.getLimit() <= 12);
+            assertEquals(0, overloaded.toStatus().getQueued());
+            assertTrue(overloaded.toStatus().getRejected() >= 10 * (32 - 16));
+        } finally {
+            overloaded.dispose();
+        }
+    }
+
+    // @return admitted requests
+    private static int serve(ConcurrencyLimiter limiter, int offered) throws InterruptedException {
+        List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < offered; i++) {
+            limiter.acquire().subscribe(permits::add, e -> { });
+        }
+        Thread.sleep(2L * Math.max(1, permits.size() / 4));
+        permits.forEach(ConcurrencyLimiter.Permit::release);
+        return permits.size();
+    }
+}
@@ -0,0 +1,34 @@
+package org.coinen.reactive.persistence.utils;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverRecordedValues() {
+        for (long micros = 0; micros < 1_000_000; micros += 7) {
+            long upperBound = LatencyHistogram.upperBound(LatencyHistogram.bucket(micros));
+            assertTrue(upperBound >= micros);
+            assertTrue(upperBound <= micros * 1.25 + 1);
+        }
+    }
+
+    @Test
+    public void percentilesFollowDistribution() {
+        var histogram = new LatencyHistogram(Duration.ofMinutes(1));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        assertEquals(100, histogram.count());
+        assertEquals(50, TimeUnit.NANOSECONDS.toMillis(histogram.percentile(0.5)), 13);
+        assertEquals(95, TimeUnit.NANOSECONDS.toMillis(histogram.percentile(0.95)), 24);
+        assertEquals(0, new LatencyHistogram(Duration.ofMinutes(1)).percentile(0.99));
+    }
+}
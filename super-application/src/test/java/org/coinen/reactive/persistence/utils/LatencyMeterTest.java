@@ -0,0 +1,56 @@
+package org.coinen.reactive.persistence.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.coinen.reactive.persistence.model.LatencyStatusDto;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyMeterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LatencyMeters meters = new LatencyMeters(registry, Duration.ofSeconds(5));
+    private final LatencyMeter meter = meters.meter(LatencyMeters.Kind.BACKEND, "cassandra");
+
+    @Test
+    public void recordsLatencyOfCompletedCalls() {
+        StepVerifier.create(meter.time(Mono.delay(Duration.ofMillis(50)).map(__ -> "gdp")))
+            .expectNext("gdp")
+            .verifyComplete();
+
+        LatencyStatusDto status = meter.toStatus();
+        assertEquals(1, status.getCount());
+        assertEquals(0, status.getInFlight());
+        assertTrue(status.getP50Millis() >= 45);
+        assertEquals(1.0, registry.get("app.calls").tag("name", "cassandra").functionCounter().count(), 0);
+    }
+
+    @Test
+    public void separatesTimeoutsFromErrors() {
+        StepVerifier.create(meter.time(Mono.error(new TimeoutException())))
+            .verifyError(TimeoutException.class);
+        StepVerifier.create(meter.time(Mono.error(new IllegalStateException())))
+            .verifyError(IllegalStateException.class);
+
+        LatencyStatusDto status = meter.toStatus();
+        assertEquals(1, status.getTimeouts());
+        assertEquals(1, status.getErrors());
+    }
+
+    @Test
+    public void cancelledCallsLeaveNoTrace() {
+        StepVerifier.create(meter.time(Mono.never()))
+            .thenCancel()
+            .verify();
+
+        LatencyStatusDto status = meter.toStatus();
+        assertEquals(0, status.getCount());
+        assertEquals(0, status.getInFlight());
+    }
+}
@@ -0,0 +1,94 @@
+package org.coinen.reactive.persistence.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.coinen.reactive.persistence.model.RequestTraceStatusDto;
+import org.junit.After;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.coinen.reactive.persistence.utils.LatencyMeters.Kind.REACTIVE;
+import static org.coinen.reactive.persistence.utils.ReactiveDiagnostics.blocking;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReactiveDiagnosticsTest {
+    private static final List<String> NON_BLOCKING_THREADS = List.of("parallel-", "single-");
+
+    private ReactiveDiagnostics diagnostics;
+    private AdaptiveBulkhead bulkhead;
+
+    private ReactiveDiagnostics start(boolean failOnBlocking) {
+        diagnostics = new ReactiveDiagnostics(
+            new DiagnosticsSettings(true, failOnBlocking, NON_BLOCKING_THREADS),
+            new SimpleMeterRegistry());
+        diagnostics.start();
+        return diagnostics;
+    }
+
+    @After
+    public void tearDown() {
+        diagnostics.dispose();
+        if (bulkhead != null) {
+            bulkhead.dispose();
+        }
+    }
+
+    @Test
+    public void blockingCallOnNonBlockingThreadFails() {
+        start(true);
+
+        StepVerifier.create(Mono.fromCallable(blocking("jdbc", () -> 1)).subscribeOn(Schedulers.parallel()))
+            .expectError(IllegalStateException.class)
+            .verify();
+        StepVerifier.create(Mono.fromCallable(blocking("jdbc", () -> 1)).subscribeOn(Schedulers.elastic()))
+            .expectNext(1)
+            .verifyComplete();
+    }
+
+    @Test
+    public void blockingCallOnNonBlockingThreadIsCounted() {
+        start(false);
+
+        StepVerifier.create(Mono.fromCallable(blocking("http", () -> 1)).subscribeOn(Schedulers.single()))
+            .expectNext(1)
+            .verifyComplete();
+
+        assertEquals(Long.valueOf(1), diagnostics.toStatus().getBlockingCalls().get("http"));
+    }
+
+    @Test
+    public void threadHopsAndQueueWaitOfRequest() {
+        start(false);
+        bulkhead = AppSchedulers.newBulkhead("test", 1, 1, 10, Duration.ofMinutes(1));
+        // Keeps the only worker busy, the request waits in the queue
+        bulkhead.execute(() -> sleep(100));
+
+        Mono<Integer> request = Mono.fromCallable(blocking("jdbc", () -> 1))
+            .subscribeOn(bulkhead.scheduler())
+            .publishOn(Schedulers.parallel());
+        StepVerifier.create(diagnostics.trace(REACTIVE, "world-gdp", request))
+            .expectNext(1)
+            .verifyComplete();
+
+        RequestTraceStatusDto trace = diagnostics.toStatus().getRequests().get(0);
+        assertEquals("world-gdp", trace.getName());
+        assertEquals(1, trace.getCount());
+        // Test thread to the bulkhead, then to the parallel scheduler
+        assertTrue("thread hops: " + trace.getMaxThreadHops(), trace.getMaxThreadHops() >= 2);
+        assertTrue("queue wait: " + trace.getMaxQueueWaitMillis(), trace.getMaxQueueWaitMillis() >= 50);
+        assertTrue(diagnostics.toStatus().getBlockingCalls().isEmpty());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
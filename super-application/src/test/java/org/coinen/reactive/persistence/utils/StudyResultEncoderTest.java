@@ -0,0 +1,109 @@
+package org.coinen.reactive.persistence.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.coinen.reactive.persistence.model.StudyResultDto;
+import org.junit.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StudyResultEncoderTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+    private final StudyResultEncoder encoder = new StudyResultEncoder();
+
+    private static String text(DataBuffer buffer) {
+        String text = StandardCharsets.UTF_8.decode(buffer.asByteBuffer()).toString();
+        DataBufferUtils.release(buffer);
+        return text;
+    }
+
+    private String encode(Flux<StudyResultDto> results) {
+        return String.join("", encoder.encode(results, bufferFactory,
+                ResolvableType.forClass(StudyResultDto.class), MediaType.APPLICATION_JSON, Collections.emptyMap())
+            .map(StudyResultEncoderTest::text)
+            .collectList()
+            .block());
+    }
+
+    @Test
+    public void oneDecimalIsFormattedAsFormatterDoes() {
+        double[] values = {0.0, -0.0, 0.05, 0.15, 0.25, 2.45, -2.45, 9.95, 99.96, 2582.5, -0.04, 1e13 + 0.05};
+        for (double value : values) {
+            assertEquals(String.format("%3.1f", value), FixedDecimals.oneDecimal(value));
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12));
+            assertEquals(String.format("%3.1f", value), FixedDecimals.oneDecimal(value));
+            double tie = Math.round(value * 10) / 10.0 + 0.05;
+            assertEquals(String.format("%3.1f", tie), FixedDecimals.oneDecimal(tie));
+        }
+    }
+
+    @Test
+    public void resultIsEncodedAsJacksonDoes() throws Exception {
+        List<StudyResultDto> results = List.of(
+            StudyResultDto.generic(21.5, 2582.5),
+            StudyResultDto.generic(-3.0, "66990000"),
+            StudyResultDto.generic(1.0E-5, "\"quoted\\\" \t\u0001 Київ"),
+            StudyResultDto.temperature(Double.NaN),
+            StudyResultDto.degraded(null));
+
+        for (StudyResultDto result : results) {
+            String expected = mapper.writeValueAsString(result);
+            assertEquals(expected, text(encoder.encode(result, bufferFactory)));
+            // Second time from memoized bytes
+            assertEquals(expected, text(encoder.encode(result, bufferFactory)));
+        }
+        assertEquals(mapper.writeValueAsString(results), encode(Flux.fromIterable(results)));
+        assertEquals("[]", encode(Flux.empty()));
+    }
+
+    @Test
+    public void fullMemoIsClearedForNewPinValue() throws Exception {
+        StudyResultEncoder small = new StudyResultEncoder(2);
+        text(small.encode(StudyResultDto.generic(1.0, "a"), bufferFactory));
+        text(small.encode(StudyResultDto.generic(2.0, "b"), bufferFactory));
+        text(small.encode(StudyResultDto.generic(3.0, "a"), bufferFactory));
+
+        assertTrue(small.isMemoized("a"));
+        assertTrue(small.isMemoized("b"));
+
+        text(small.encode(StudyResultDto.generic(4.0, "c"), bufferFactory));
+
+        assertFalse(small.isMemoized("a"));
+        assertFalse(small.isMemoized("b"));
+        assertTrue(small.isMemoized("c"));
+
+        // Same pin value, another external value
+        StudyResultDto result = StudyResultDto.generic(5.0, "a");
+        assertEquals(mapper.writeValueAsString(result), text(small.encode(result, bufferFactory)));
+    }
+
+    @Test
+    public void singleResultIsNoArray() throws Exception {
+        StudyResultDto result = StudyResultDto.generic(21.5, 36.6);
+
+        StepVerifier.create(encoder.encode(Mono.just(result), bufferFactory,
+                ResolvableType.forClass(StudyResultDto.class), null, Collections.emptyMap())
+            .map(StudyResultEncoderTest::text))
+            .expectNext(mapper.writeValueAsString(result))
+            .verifyComplete();
+    }
+}